@@ -0,0 +1,243 @@
+package cs4300;
+
+import java.awt.Rectangle;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import cs4300.CgsSprite.WeaponType;
+
+// runs many independent game sessions at once on a ForkJoinPool, with no display
+// the sessions sweep over spawn rates and weapons, each with its own seed, world and input,
+// so nothing is shared between threads and the runs can be reproduced from the batch seed
+// once every session is done the results are summed up overall and for each spawn rate and weapon,
+// along with how well the batch used the cores it was given
+// usage: java -Djava.awt.headless=true cs4300.BatchSimulation [sessions] [maxTicks] [threads] [seed]
+public class BatchSimulation
+{
+	private static final int DEF_SESSIONS = 96;
+	private static final long DEF_MAX_TICKS = 60000;	// ten minutes of play at the default tick rate
+	private static final long TICK_MILLIS = 10;
+	private static final long[] SPAWN_RATES = { GameWorld.DEF_SPAWN_RATE/2, GameWorld.DEF_SPAWN_RATE,
+												GameWorld.DEF_SPAWN_RATE*2 };
+	
+	// the settings and outcome of one session
+	private static class SessionResult
+	{
+		long seed;
+		long spawnRate;
+		WeaponType weapon;
+		int score;
+		long ticks;				// how many ticks the player survived, up to the maximum
+		int peakProjectiles, peakEnemies;
+		long cpuNanos;			// CPU time used by the thread that ran the session
+	}
+	
+	// runs a range of sessions, splitting the range in half until there is one session left
+	private static class SessionTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private SessionResult[] results;
+		private int start, end;
+		private long maxTicks;
+		
+		public SessionTask(SessionResult[] results, int start, int end, long maxTicks)
+		{
+			this.results = results;
+			this.start = start;
+			this.end = end;
+			this.maxTicks = maxTicks;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			int mid;
+			
+			if (end - start == 1)
+			{
+				runSession(results[start], maxTicks);
+				return;
+			}
+			mid = (start + end)/2;
+			invokeAll(new SessionTask(results, start, mid, maxTicks), new SessionTask(results, mid, end, maxTicks));
+		}
+	}
+	
+	public static void main(String[] args)
+	{
+		int sessions = DEF_SESSIONS;
+		long maxTicks = DEF_MAX_TICKS;
+		int threads = Runtime.getRuntime().availableProcessors();
+		long seed = Simulation.DEF_SEED;
+		SessionResult[] results;
+		SplittableRandom seeds;
+		WeaponType[] weapons = WeaponType.values();
+		ForkJoinPool pool;
+		long startTime, elapsed;
+		
+		if (args.length > 0)
+		{
+			sessions = Integer.parseInt(args[0]);
+		}
+		if (args.length > 1)
+		{
+			maxTicks = Long.parseLong(args[1]);
+		}
+		if (args.length > 2)
+		{
+			threads = Integer.parseInt(args[2]);
+		}
+		if (args.length > 3)
+		{
+			seed = Long.parseLong(args[3]);
+		}
+		
+		// every combination of spawn rate and weapon gets the same number of sessions
+		// (give or take one), each with a different seed
+		results = new SessionResult[sessions];
+		seeds = new SplittableRandom(seed);
+		for (int i = 0; i < sessions; i++)
+		{
+			results[i] = new SessionResult();
+			results[i].seed = seeds.nextLong();
+			results[i].spawnRate = SPAWN_RATES[i % SPAWN_RATES.length];
+			results[i].weapon = weapons[(i / SPAWN_RATES.length) % weapons.length];
+		}
+		
+		pool = new ForkJoinPool(threads);
+		startTime = System.nanoTime();
+		if (sessions > 0)
+		{
+			pool.invoke(new SessionTask(results, 0, sessions, maxTicks));
+		}
+		elapsed = System.nanoTime() - startTime;
+		pool.shutdown();
+		
+		printResults(results, threads, seed, elapsed);
+	}
+	
+	// play one session until the player dies or the maximum number of ticks have run
+	private static void runSession(SessionResult result, long maxTicks)
+	{
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		long cpuStart = bean.getCurrentThreadCpuTime();
+		Rectangle playArea = Simulation.createPlayArea();
+		GameWorld world = Simulation.createWorld(playArea, result.seed);
+		ScriptedInput script = new ScriptedInput(playArea, result.weapon);
+		PlayerInput input = new PlayerInput();
+		
+		world.setSpawnRate(result.spawnRate);
+		while ((world.isPlayerAlive() == true) && (world.getTickCount() < maxTicks))
+		{
+			script.nextInput(input);
+			world.tick(TICK_MILLIS, input);
+			result.peakProjectiles = Math.max(result.peakProjectiles, world.getNumProjectiles());
+			result.peakEnemies = Math.max(result.peakEnemies, world.getEnemies().size());
+		}
+		
+		result.score = world.getScore();
+		result.ticks = world.getTickCount();
+		result.cpuNanos = bean.getCurrentThreadCpuTime() - cpuStart;
+	}
+	
+	// print the overall results, then a line for each combination of spawn rate and weapon
+	private static void printResults(SessionResult[] results, int threads, long seed, long elapsed)
+	{
+		long[] scores = new long[results.length];
+		long[] survival = new long[results.length];
+		long totalTicks = 0, cpuNanos = 0;
+		int peakProjectiles = 0, peakEnemies = 0;
+		double wallSeconds = elapsed/1e9;
+		double cpuSeconds;
+		
+		for (int i = 0; i < results.length; i++)
+		{
+			scores[i] = results[i].score;
+			survival[i] = results[i].ticks*TICK_MILLIS;
+			totalTicks += results[i].ticks;
+			cpuNanos += results[i].cpuNanos;
+			peakProjectiles = Math.max(peakProjectiles, results[i].peakProjectiles);
+			peakEnemies = Math.max(peakEnemies, results[i].peakEnemies);
+		}
+		cpuSeconds = cpuNanos/1e9;
+		
+		System.out.println("seed:              " + seed);
+		System.out.println("sessions:          " + results.length);
+		System.out.println("threads:           " + threads);
+		System.out.println("total ticks:       " + totalTicks);
+		System.out.println("wall seconds:      " + wallSeconds);
+		System.out.println("ticks/second:      " + (long)(totalTicks/wallSeconds));
+		if (cpuSeconds > 0)
+		{
+			// if the sessions scale perfectly, the CPU time is threads times the wall time
+			System.out.println("ticks/second/core: " + (long)(totalTicks/cpuSeconds));
+			System.out.println(String.format("cores used:        %.2f of %d (%.0f%% efficient)",
+											 cpuSeconds/wallSeconds, threads,
+											 100*cpuSeconds/wallSeconds/threads));
+		}
+		System.out.println("peak projectiles:  " + peakProjectiles);
+		System.out.println("peak enemies:      " + peakEnemies);
+		System.out.println("score:             " + distribution(scores));
+		System.out.println("survival (ms):     " + distribution(survival));
+		
+		System.out.println();
+		System.out.println(String.format("%-8s %-8s %8s %10s %12s %10s %10s", "spawn", "weapon", "sessions",
+										 "avg score", "avg survival", "peak proj", "peak enemy"));
+		for (long rate : SPAWN_RATES)
+		{
+			for (WeaponType weapon : WeaponType.values())
+			{
+				printGroup(results, rate, weapon);
+			}
+		}
+	}
+	
+	// print the averages for the sessions with one spawn rate and weapon
+	private static void printGroup(SessionResult[] results, long spawnRate, WeaponType weapon)
+	{
+		int count = 0, peakProjectiles = 0, peakEnemies = 0;
+		long totalScore = 0, totalTicks = 0;
+		
+		for (SessionResult result : results)
+		{
+			if ((result.spawnRate == spawnRate) && (result.weapon == weapon))
+			{
+				count++;
+				totalScore += result.score;
+				totalTicks += result.ticks;
+				peakProjectiles = Math.max(peakProjectiles, result.peakProjectiles);
+				peakEnemies = Math.max(peakEnemies, result.peakEnemies);
+			}
+		}
+		if (count == 0)
+		{
+			return;
+		}
+		System.out.println(String.format("%-8d %-8s %8d %10d %12d %10d %10d", spawnRate, weapon, count,
+										 totalScore/count, totalTicks*TICK_MILLIS/count,
+										 peakProjectiles, peakEnemies));
+	}
+	
+	// describe the spread of a set of values
+	private static String distribution(long[] values)
+	{
+		long total = 0;
+		
+		if (values.length == 0)
+		{
+			return ("none");
+		}
+		Arrays.sort(values);
+		for (long value : values)
+		{
+			total += value;
+		}
+		return (String.format("min %d, p25 %d, median %d, p75 %d, max %d, mean %d",
+							  values[0], values[(values.length-1)/4], values[(values.length-1)/2],
+							  values[((values.length-1)*3)/4], values[values.length-1], total/values.length));
+	}
+}
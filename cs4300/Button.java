@@ -1,12 +1,15 @@
 package cs4300;
 
 import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
 
 import cs4300.Menu.MenuAction;
 
 // a type of MenuItem that can be clicked to produce an action
 public class Button extends MenuItem
 {
+	private static final int TEXT_SIZE = 20;
+	
 	private String text;
 	
 	public Button(String text, MenuAction action, float width, float height)
@@ -22,7 +25,18 @@ public class Button extends MenuItem
 		super.draw(g2d, style);
 		
 		// draw the text onto the button
-		Menu.drawText(g2d, text, 20, style.colors.textColor, (float)outline.getCenterX(), (float)outline.getCenterY());
+		Menu.drawText(g2d, text, TEXT_SIZE, style.colors.textColor, (float)outline.getCenterX(), (float)outline.getCenterY());
+	}
+	
+	@Override
+	protected Rectangle2D getDrawBounds(Graphics2D g2d, MenuStyle style)
+	{
+		Rectangle2D bounds = super.getDrawBounds(g2d, style);
+		
+		// the label is a fixed string, so its layout comes from the shared cache
+		bounds.add(Menu.getTextBounds(RenderCache.getTextLayout(text, TEXT_SIZE, g2d.getFontRenderContext()),
+									  (float)outline.getCenterX(), (float)outline.getCenterY()));
+		return (bounds);
 	}
 
 }
@@ -9,13 +9,13 @@
 package cs4300;
 
 import java.applet.Applet;
+import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Frame;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.util.LinkedList;
-import java.util.Random;
 
 public class CgShooter extends Applet
 {
@@ -30,7 +30,7 @@ public class CgShooter extends Applet
 	private static final Color SELECTED_COLOR = Color.ORANGE;
 	private static final Color TEXT_COLOR = Color.BLACK;
 	
-	public static final Random rand = new Random();
+	private Canvas surface;			// everything is drawn here, it and its buffers last as long as the program
 	private CgsMenu menu;
 	private CgsGameScreen gameScreen;
 	private Dimension winSize;
@@ -65,6 +65,15 @@ public class CgShooter extends Applet
 	@Override
 	public void init()
 	{
+		// the menus and the game take turns drawing on the one surface,
+		// so it is only added and given buffers once
+		surface = new Canvas();
+		surface.setPreferredSize(winSize);
+		surface.setIgnoreRepaint(true);
+		add(surface);
+		validate();
+		surface.createBufferStrategy(2);
+		
 		// the program is split into two main parts:
 		// 1. the menu system
 		// 2. the game screen, where the game is played
@@ -95,26 +104,72 @@ public class CgShooter extends Applet
 	// high score menu
 	private void showMenu()
 	{
-		menu = new CgsMenu(this, winSize, colors, scoreList);
-		menu.setPreferredSize(winSize);
-		add(menu, 0);
-		validate();
+		if (menu == null)
+		{
+			menu = new CgsMenu(this, surface, winSize, colors, scoreList);
+		}
 		menu.start();
 	}
 	
 	// shows the game screen, where the game is played
+	// the game screen is made for the first game and reused after that
 	private void showGameScreen()
 	{
 		HighScore newHs;
-		gameScreen = new CgsGameScreen(winSize, colors);
-		gameScreen.setPreferredSize(winSize);
-		add(gameScreen, 0);
-		validate();
+		
+		if (gameScreen == null)
+		{
+			createGameScreen();
+		}
 		newHs = gameScreen.start();
 		
 		registerNewScore(newHs);
 	}
 	
+	// make the game screen and apply the settings from the system properties
+	private void createGameScreen()
+	{
+		SpriteAtlas atlas;
+		FrameProfiler profiler;
+		
+		gameScreen = new CgsGameScreen(surface, winSize, colors);
+		gameScreen.setTickRate(Integer.getInteger("cgs.tickRate", CgsGameScreen.DEF_TICK_RATE));
+		gameScreen.setFrameRate(Integer.getInteger("cgs.frameRate", CgsGameScreen.DEF_FRAME_RATE));
+		gameScreen.setParticleBudget(Integer.getInteger("cgs.particles", ParticleSystem.DEF_BUDGET));
+		if (Boolean.getBoolean("cgs.atlas") == true)
+		{
+			// the atlas lasts for every game so its images only have to be drawn once
+			atlas = new SpriteAtlas(Integer.getInteger("cgs.atlasRotations", SpriteAtlas.DEF_ROTATIONS),
+									Integer.getInteger("cgs.atlasTints", SpriteAtlas.DEF_TINTS),
+									Float.parseFloat(System.getProperty("cgs.atlasScale", 
+																		String.valueOf(SpriteAtlas.DEF_SCALE))));
+			gameScreen.setAtlas(atlas);
+			gameScreen.prewarmAtlas();
+		}
+		if (Long.getLong("cgs.seed") != null)
+		{
+			// every game is played with the same random numbers
+			gameScreen.setSeed(Long.getLong("cgs.seed"));
+		}
+		if (System.getProperty("cgs.record") != null)
+		{
+			gameScreen.setRecordFile(System.getProperty("cgs.record"));
+		}
+		if (System.getProperty("cgs.replay") != null)
+		{
+			gameScreen.setReplayFile(System.getProperty("cgs.replay"), 
+									 "max".equals(System.getProperty("cgs.replaySpeed")));
+		}
+		if (System.getProperty("cgs.profileFile") != null)
+		{
+			// one profiler covers every game, so the dump file isn't replaced when a new game starts
+			profiler = new FrameProfiler();
+			profiler.setInterval(Long.getLong("cgs.profileInterval", FrameProfiler.DEF_INTERVAL));
+			profiler.setDumpFile(System.getProperty("cgs.profileFile"));
+			gameScreen.setProfiler(profiler);
+		}
+	}
+	
 	// this initializes the list of high scores
 	// currently high scores only last while the program is open
 	// I hope to add high score persistence at a later date
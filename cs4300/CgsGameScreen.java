@@ -1,10 +1,9 @@
 package cs4300;
 
 import java.awt.Canvas;
-import java.awt.Color;
 import java.awt.Dimension;
-import java.awt.GradientPaint;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
@@ -13,26 +12,36 @@ import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.image.BufferStrategy;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.io.IOException;
 import cs4300.CgsSprite.WeaponType;
-import cs4300.Enemy.EnemyType;
+import cs4300.FrameProfiler.Phase;
 import cs4300.Menu.MenuAction;
 import cs4300.MenuStyle.LayoutType;
 
 // the class that controls the game screen, where gameplay takes place
-public class CgsGameScreen extends Canvas implements MouseListener, KeyListener
+// one game screen is made and reset for each game, drawing on the surface it shares with the menus
+public class CgsGameScreen implements MouseListener, KeyListener, InputSource
 {
 	public enum GameState
 	{
 		IN_GAME, PAUSED, GAME_OVER
 	}
 	
-	private static final long serialVersionUID = 1L;
-	private static final int DEF_SPAWN_RATE = 500;
+	public static final int DEF_TICK_RATE = 100;		// simulation ticks per second
+	public static final int DEF_FRAME_RATE = 60;	// frames drawn per second
+	private static final long NANOS_PER_MILLI = 1000000L;
+	private static final long NANOS_PER_SECOND = 1000000000L;
+	private static final long MAX_FRAME_TIME = 250*NANOS_PER_MILLI;	// the most real time a single frame can simulate
 	private static final int MAX_NAME_LEN = 32;
+	
+	// the keys the game responds to, used as indexes into keyHeld and keyTapped
+	private static final int KEY_W = 0, KEY_A = 1, KEY_S = 2, KEY_D = 3;
+	private static final int KEY_UP = 4, KEY_LEFT = 5, KEY_DOWN = 6, KEY_RIGHT = 7;
+	private static final int KEY_SPACE = 8, KEY_ESC = 9, KEY_1 = 10, KEY_2 = 11, KEY_3 = 12, KEY_F3 = 13;
+	private static final int NUM_KEYS = 14;
 	private static final String DEFAULT_NAME = "Your Name Here";
 	
+	private Canvas surface;			// where the game is drawn, shared with the menus
 	private Dimension winSize;
 	private Rectangle playArea;
 	private BufferStrategy bStrat;
@@ -44,64 +53,201 @@ public class CgsGameScreen extends Canvas implements MouseListener, KeyListener
 	private Menu endMenu;
 	private Menu gameMenu;
 	private MenuAction pendingAction;
-	private Color bgTextureCol1, bgTextureCol2;
-	private GradientPaint bgTexture;
-	private int bgTextureWidth;
-	private float bgScrollPos;
-	private float bgScrollMod;
-	
-	private Player player;
-	private boolean keyDownW, keyDownA, keyDownS, keyDownD; 
-	private boolean keyDownUp, keyDownLeft, keyDownDown, keyDownRight;
-	private boolean keyDownSpace, keyDownEsc;
-	private boolean keyDown1, keyDown2, keyDown3;
-	private boolean keyDownLmb;
-	private LinkedList<Projectile> projectileList;
-	private LinkedList<Enemy> enemyList;
-	private long spawnCounter;
-	private long spawnRate;
-	private int score;
+	private ScrollingBackground background;
+	private SpriteAtlas atlas;		// pre-drawn sprite images, or null to always draw outlines
+	private long tickMillis;		// the length of a simulation tick this game
+	private long setTickMillis;		// the tick length that was set, used again once a replay is over
+	private int frameRate;
+	private int particleBudget;		// how many particles and flame curves can be drawn each frame
+	private FrameProfiler profiler;	// shown on screen with F3, or null until it is first wanted
+	private boolean profiling;		// whether frames and ticks are being timed
+	private Long seed;				// the seed for every game's random numbers, or null to pick a new one each game
+	private String recordPath;		// where to record the game's input, or null to not record
+	private InputRecorder recorder;
+	private String replayPath;		// a recording to play back instead of reading the player's input, or null
+	private boolean replayMaxSpeed;	// play the recording back as fast as possible without drawing it
+	private InputReplay replay;
+	
+	private GameWorld world;
+	private InputSource inputSource;
+	private PlayerInput input;
+	private Point mousePos;
+	
+	// the event listeners only add events to the queue, the game loop applies them at the
+	// start of each tick, so all of the input state below is only touched by the game loop
+	private InputQueue inputQueue;
+	private InputQueue.InputEvent polled;
+	private boolean[] keyHeld;			// keys that are down
+	private boolean[] keyTapped;		// keys that went down since the last tick, even if already let go
+	private boolean escPressed;
+	private boolean keyDownLmb, lmbPressed;
+	private Point clickPos;
 	private TextItem scoreDisplay;
+	private int shownScore;			// the score on the score display, so its text is only made when the score changes
 	private String name;
 	private TextItem nameDisplay;
 	private Button rapidBtn, spreadBtn, laserBtn;
-	boolean dragging;
+	private WeaponType pendingWeapon;	// a weapon chosen on the game menu or keyboard, waiting for the next tick
+	private WeaponType shownWeapon;		// the weapon currently highlighted on the game menu
 	
-	public CgsGameScreen(Dimension windowSize, ColorScheme colors)
+	public CgsGameScreen(Canvas surface, Dimension windowSize, ColorScheme colors)
 	{
+		this.surface = surface;
 		winSize = windowSize;
 		name = DEFAULT_NAME;
 		this.colors = colors;
+		inputSource = this;
+		input = new PlayerInput();
+		inputQueue = new InputQueue();
+		polled = new InputQueue.InputEvent();
+		keyHeld = new boolean[NUM_KEYS];
+		keyTapped = new boolean[NUM_KEYS];
+		clickPos = new Point();
+		profiler = null;
+		profiling = false;
+		seed = null;
+		recordPath = replayPath = null;
+		setTickRate(DEF_TICK_RATE);
+		setFrameRate(DEF_FRAME_RATE);
+		setParticleBudget(ParticleSystem.DEF_BUDGET);
+		
+		// the menus and background last for every game
+		createPauseMenu();
+		createEndMenu();
+		createGameMenu();
+		initBg();
+		world = null;
+	}
+	
+	// set how many times per second the game is simulated
+	// the tick length is rounded to a whole number of milliseconds, 
+	// so the actual rate may be slightly off for rates that don't divide 1000 evenly
+	public void setTickRate(int ticksPerSecond)
+	{
+		if (ticksPerSecond <= 0)
+		{
+			ticksPerSecond = DEF_TICK_RATE;
+		}
+		tickMillis = setTickMillis = Math.max(1, Math.round(1000.0/ticksPerSecond));
+	}
+	
+	// draw sprites from pre-drawn images instead of their outlines
+	// pass null to go back to drawing outlines
+	public void setAtlas(SpriteAtlas atlas)
+	{
+		this.atlas = atlas;
+	}
+	
+	// draw the atlas's images for each kind of sprite ahead of time, so the first enemy of a type
+	// or the first hit on the player doesn't stall a frame while its images are drawn
+	// sprites the atlas doesn't have are still drawn into it when they are first needed
+	public void prewarmAtlas()
+	{
+		GraphicsConfiguration gc = surface.getGraphicsConfiguration();
+		
+		if ((atlas == null) || (gc == null) || (playArea == null))
+		{
+			// the surface isn't on a screen yet, so the images would be made for the wrong one
+			return;
+		}
+		atlas.prewarm(gc, new Player(playArea, 0, 0));
+		for (Enemy.EnemyType type : Enemy.EnemyType.values())
+		{
+			atlas.prewarm(gc, new Enemy(type, playArea, 0, 0));
+		}
+		for (WeaponType type : WeaponType.values())
+		{
+			atlas.prewarm(gc, new Projectile(type, playArea, 0, 0, 0, null));
+		}
+	}
+	
+	// play every game with random numbers from the passed in seed, so games can be reproduced
+	public void setSeed(long seed)
+	{
+		this.seed = seed;
+	}
+	
+	// record every tick's input to the passed in file, so the game can be replayed later
+	public void setRecordFile(String path)
+	{
+		recordPath = path;
+	}
+	
+	// play back a recording instead of reading the keyboard and mouse
+	// the recording decides the seed and tick length, once it runs out the player takes over
+	// at max speed the recording is played as fast as possible with nothing drawn until it ends
+	public void setReplayFile(String path, boolean maxSpeed)
+	{
+		replayPath = path;
+		replayMaxSpeed = maxSpeed;
+	}
+	
+	// set the profiler that times each frame
+	// without one, a profiler is only made when the overlay is first shown
+	public void setProfiler(FrameProfiler profiler)
+	{
+		this.profiler = profiler;
+	}
+	
+	// set the maximum number of frames drawn per second
+	// this is independent of the tick rate, lowering it saves CPU without changing how the game plays
+	public void setFrameRate(int framesPerSecond)
+	{
+		if (framesPerSecond <= 0)
+		{
+			framesPerSecond = DEF_FRAME_RATE;
+		}
+		frameRate = framesPerSecond;
+	}
+	
+	// set how many explosion particles and engine flame curves can be drawn each frame
+	// past the budget explosions get smaller and engines are drawn with fewer curves
+	public void setParticleBudget(int budget)
+	{
+		if (budget < 0)
+		{
+			budget = ParticleSystem.DEF_BUDGET;
+		}
+		particleBudget = budget;
 	}
 	
 	// starts the game and returns the final score when the game is over
 	public HighScore start()
 	{
-		setIgnoreRepaint(true);
+		bStrat = surface.getBufferStrategy();
+		reset();
 		
-		createBufferStrategy(2);
-		bStrat = getBufferStrategy();
+		surface.addMouseListener(this);
+		surface.addKeyListener(this);
+		surface.requestFocus();
 		
-		createPauseMenu();
-		createEndMenu();
-		createGameMenu();
-		initBg();
-		initEnemies();
-		initPlayer();
+		mainLoop();
+		closeRecording();
+		
+		// the menus get the surface's input until the next game
+		surface.removeMouseListener(this);
+		surface.removeKeyListener(this);
+		return (new HighScore(name, world.getScore()));
+	}
+	
+	// put everything back the way it was before the first game
+	// the world, its pools and the menus are reused rather than made again
+	public void reset()
+	{
+		initWorld();
 		initKeys();
 		
-		addMouseListener(this);
-		addKeyListener(this);
-		requestFocus();
+		// throw away any input left over from the last game
+		inputQueue.clear();
+		pauseMenu.clearHovered();
+		endMenu.clearHovered();
+		gameMenu.clearHovered();
+		name = DEFAULT_NAME;
+		updateNameDisplay();
 		
 		pendingAction = MenuAction.INVALID_ACTION;
 		running = true;
 		state = GameState.IN_GAME;
-		score = 0;
-		dragging = false;
-		
-		mainLoop();
-		return (new HighScore(name, score));
 	}
 	
 	// sets up the pause menu, which is displayed while the game is paused
@@ -173,7 +319,7 @@ public class CgsGameScreen extends Canvas implements MouseListener, KeyListener
 		gameMenu.add(laserBtn);
 		spacer = new TextItem("", 0, false, 0, 0);
 		gameMenu.add(spacer);
-		scoreDisplay = new TextItem("SCORE: "+score, 32, false, 0, 0);
+		scoreDisplay = new TextItem("SCORE: 0", 32, false, 0, 0);
 		gameMenu.add(scoreDisplay);
 		gameMenu.add(spacer);
 		btn = new Button("Pause", MenuAction.GM_PAUSE, itemWidth, itemHeight);
@@ -183,82 +329,237 @@ public class CgsGameScreen extends Canvas implements MouseListener, KeyListener
 	// sets up the scrolling background
 	private void initBg()
 	{
-		// the textured effect of the background is made by overlaying 
-		// a translucent pattern on a solid color (gray by default)
-		bgTextureCol1 = new Color(0,0,0,170);
-		bgTextureCol2 = new Color(0,0,0,90);
-		bgTextureWidth = 90;
-		bgScrollPos = bgTextureWidth*2;
-		bgScrollMod = 0.2f;
-		bgTexture = new GradientPaint(0, 0, bgTextureCol1, bgTextureWidth, 0, bgTextureCol2, true);
+		background = new ScrollingBackground(colors);
+		background.setCached(Boolean.parseBoolean(System.getProperty("cgs.bgCache", "true")));
 		
 		// the play area is the screen size minus the game menu at the top of the screen
 		playArea = new Rectangle(0, (int)gameMenu.getHeight(), winSize.width, 
 								(int)(winSize.height-gameMenu.getHeight()));
 	}
 	
-	// sets up the list of enemies, which is empty at first
-	private void initEnemies()
+	// sets up the game world, which holds the player, enemies and projectiles
+	// the world is made for the first game and reset for every game after that
+	private void initWorld()
 	{
-		enemyList = new LinkedList<Enemy>();
+		openReplay();
+		if (world == null)
+		{
+			world = new GameWorld(playArea, winSize.width/10, winSize.height/2);
+		}
+		if (replay != null)
+		{
+			// the player starts where they did in the recording
+			world.setStart(replay.getStartX(), replay.getStartY());
+			world.reset(replay.getSeed());
+		}
+		else if (seed != null)
+		{
+			world.setStart(winSize.width/10, winSize.height/2);
+			world.reset(seed);
+		}
+		else
+		{
+			world.setStart(winSize.width/10, winSize.height/2);
+			world.reset();
+		}
+		attachProfiler();
+		if ((world.getParticles() == null) || (world.getParticles().getBudget() != particleBudget))
+		{
+			world.setParticles(new ParticleSystem(particleBudget));
+		}
+		openRecording();
+		pendingWeapon = null;
+		shownWeapon = null;
+		showWeapon(world.getPlayer().getWeaponType());
+		shownScore = -1;
+		updateScoreDisplay();
+		prewarmAtlas();
+	}
+	
+	// open the replay if there is one and use it for input
+	// a replay is played at the tick length it was recorded with, every game after it goes back to the set tick length
+	// the tick length can't change part way through a game, so a replay that ends early keeps its tick length until the game is over
+	private void openReplay()
+	{
+		replay = null;
+		inputSource = this;
+		tickMillis = setTickMillis;
+		if (replayPath == null)
+		{
+			return;
+		}
 		
-		spawnCounter = 0;
-		spawnRate = DEF_SPAWN_RATE;
+		try
+		{
+			replay = new InputReplay(replayPath);
+		}
+		catch (IOException ex)
+		{
+			ex.printStackTrace();
+			return;
+		}
+		inputSource = replay;
+		tickMillis = replay.getTickMillis();
+		if (replay.getPlayArea().equals(playArea) == false)
+		{
+			System.err.println("the replay was recorded with a different play area and may not play out the same");
+		}
 	}
 	
-	// creates the player's sprite and the list that holds projectiles
-	private void initPlayer()
+	// start recording the game's input if a record file was set
+	private void openRecording()
 	{
-		player = new Player(playArea, winSize.width/10, winSize.height/2);
-		projectileList = new LinkedList<Projectile>();
-		switchWeapon(WeaponType.RAPID);
+		recorder = null;
+		if (recordPath == null)
+		{
+			return;
+		}
+		
+		try
+		{
+			recorder = new InputRecorder(recordPath, world, tickMillis);
+		}
+		catch (IOException ex)
+		{
+			ex.printStackTrace();
+		}
+	}
+	
+	// finish the recording, if there is one
+	private void closeRecording()
+	{
+		if (recorder != null)
+		{
+			recorder.close();
+			recorder = null;
+		}
+	}
+	
+	// play the whole replay as quickly as possible, without drawing or waiting between ticks
+	// the time taken is printed so that replays can be compared from one build to the next
+	private void runReplayAtMaxSpeed()
+	{
+		long startTime = System.nanoTime();
+		long ticks = 0;
+		double seconds;
+		
+		while ((replay.isFinished() == false) && (world.isPlayerAlive() == true))
+		{
+			replay.nextInput(input);
+			if (recorder != null)
+			{
+				recorder.record(input);
+			}
+			world.tick(tickMillis, input);
+			ticks++;
+		}
+		seconds = (System.nanoTime() - startTime)/1e9;
+		System.out.println("replayed " + ticks + " ticks in " + seconds + " seconds (" + 
+						   (long)(ticks/seconds) + " ticks/second), score " + world.getScore());
+		
+		updateScoreDisplay();
+		if (world.isPlayerAlive() == false)
+		{
+			state = GameState.GAME_OVER;
+		}
+		
+		// hand control back to the player
+		replay = null;
+		inputSource = this;
 	}
 	
 	// initializes all tracked keys to false (not pressed)
 	private void initKeys()
 	{
-		keyDownW = keyDownA = keyDownS = keyDownD = false;
-		keyDownUp = keyDownLeft = keyDownDown = keyDownRight = false;
-		keyDownSpace = keyDownEsc = false;
-		keyDown1 = keyDown2 = keyDown3 = false;
-		keyDownLmb = false;
+		for (int i = 0; i < NUM_KEYS; i++)
+		{
+			keyHeld[i] = keyTapped[i] = false;
+		}
+		escPressed = false;
+		keyDownLmb = lmbPressed = false;
 	}
 	
 	// this loop runs while the program is displaying the game screen
 	// it is exited when the player dies or exits the game
 	private void mainLoop()
 	{
-		long lastTick, curTick, delta;
-		lastTick = System.currentTimeMillis();
+		long tickLength, frameLength;
+		long lastTime, curTime, frameTime, accumulator;
+		long nextFrame, sleepTime;
+		long phaseTime;
+		double alpha;
+		
+		if ((replay != null) && (replayMaxSpeed == true))
+		{
+			runReplayAtMaxSpeed();
+		}
+		
+		tickLength = tickMillis*NANOS_PER_MILLI;
+		frameLength = NANOS_PER_SECOND/frameRate;
+		accumulator = 0;
+		lastTime = nextFrame = System.nanoTime();
 		
 		while (running == true)
 		{
-			// calculate delta - the number of milliseconds 
-			// since this loop last ran
-			// delta is used to scale many operations and 
-			// increment/decrement timers
-			curTick = System.currentTimeMillis();
-			delta = curTick - lastTick;
-			lastTick = curTick;
+			// bank the real time that has passed since the last frame
+			curTime = System.nanoTime();
+			frameTime = curTime - lastTime;
+			lastTime = curTime;
+			if (profiling == true)
+			{
+				profiler.endFrame(frameTime, world.getNumProjectiles(), world.getEnemies().size());
+			}
+			if (frameTime > MAX_FRAME_TIME)
+			{
+				// after a long stall (GC pause, window drag, etc.) don't try to
+				// simulate all of the missed time at once
+				frameTime = MAX_FRAME_TIME;
+			}
+			accumulator += frameTime;
 			
+			// the game is simulated in fixed size ticks so that movement and
+			// collisions don't depend on how quickly frames are being drawn
+			while ((accumulator >= tickLength) && (running == true))
+			{
+				updateGame(tickMillis);
+				accumulator -= tickLength;
+			}
+			
+			// draw the sprites part way between the last two ticks 
+			// based on how much time is left over in the accumulator
+			alpha = (double)accumulator/tickLength;
+			
+			phaseTime = System.nanoTime();
 			Graphics2D g2d = (Graphics2D)bStrat.getDrawGraphics();
 			g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 			
-			updateGame(delta);
-			redraw(g2d, delta);
+			redraw(g2d, alpha);
 			
 			g2d.dispose();
+			phaseTime = lap(Phase.REDRAW, phaseTime);
 			bStrat.show();
+			phaseTime = lap(Phase.SHOW, phaseTime);
 			
-			// suspend the thread for a few milliseconds before processing the next frame
-			// aim for about 60 frames per second
-			try 
+			// suspend the thread until the next frame is due
+			nextFrame += frameLength;
+			sleepTime = nextFrame - phaseTime;
+			if (sleepTime > 0)
 			{
-				Thread.sleep(16);
-			} 
-			catch (InterruptedException ex) 
+				try 
+				{
+					Thread.sleep(sleepTime/NANOS_PER_MILLI, (int)(sleepTime%NANOS_PER_MILLI));
+				} 
+				catch (InterruptedException ex) 
+				{
+					ex.printStackTrace();
+				}
+				lap(Phase.SLEEP, phaseTime);
+			}
+			else if (sleepTime < -frameLength)
 			{
-				ex.printStackTrace();
+				// we have fallen more than a frame behind, 
+				// start counting from now rather than rushing to catch up
+				nextFrame = System.nanoTime();
 			}
 		}
 	}
@@ -266,20 +567,45 @@ public class CgsGameScreen extends Canvas implements MouseListener, KeyListener
 	// call the appropriate update methods based on game state
 	private void updateGame(long delta)
 	{
-		handleUserInput(delta);
+		long inputTime;
+		
+		background.savePrevState();
+		inputTime = System.nanoTime();
+		mousePos = surface.getMousePosition();
+		drainInput();
+		handleUserInput();
 		
 		switch (state)
 		{
 		case IN_GAME:
-			updateProjectiles(delta);
-			updateEnemies(delta);
-			updatePlayer(delta);
+			background.update(delta);
+			if ((replay != null) && (replay.isFinished() == true))
+			{
+				// the recording is over, hand control back to the player
+				replay = null;
+				inputSource = this;
+			}
+			inputSource.nextInput(input);
+			if (recorder != null)
+			{
+				recorder.record(input);
+			}
+			lap(Phase.INPUT, inputTime);
+			world.tick(delta, input);
+			showWeapon(world.getPlayer().getWeaponType());
 			updateScoreDisplay();
+			if (world.isPlayerAlive() == false)
+			{
+				// the player is dead, end the game
+				state = GameState.GAME_OVER;
+			}
 			break;
 		case GAME_OVER:
+			world.savePrevStates();
 			updateNameDisplay();
 			break;
 		default:
+			world.savePrevStates();
 			break;
 		}
 		
@@ -290,13 +616,26 @@ public class CgsGameScreen extends Canvas implements MouseListener, KeyListener
 	}
 	
 	// redraw the game screen and any active menus
-	private void redraw(Graphics2D g2d, long delta)
+	private void redraw(Graphics2D g2d, double alpha)
 	{
-		drawBackground(g2d, delta);
+		long bgStart = 0;
+		
+		// the background is timed on its own so the cached strip can be compared with filling the window
+		if (profiling == true)
+		{
+			bgStart = System.nanoTime();
+		}
+		background.draw(g2d, winSize, alpha);
+		if (profiling == true)
+		{
+			profiler.record(Phase.BACKGROUND, System.nanoTime() - bgStart);
+		}
 		
-		drawProjectiles(g2d);
-		drawEnemies(g2d);
-		player.draw(g2d);
+		world.getParticles().beginFrame();
+		drawProjectiles(g2d, alpha);
+		drawEnemies(g2d, alpha);
+		world.getParticles().draw(g2d, alpha);
+		world.getPlayer().draw(g2d, alpha, atlas);
 		gameMenu.draw(g2d);
 		
 		if (state == GameState.PAUSED)
@@ -307,184 +646,78 @@ public class CgsGameScreen extends Canvas implements MouseListener, KeyListener
 		{
 			endMenu.draw(g2d);
 		}
-	}
-	
-	// draw the background
-	// advance the background movement if the game is running
-	private void drawBackground(Graphics2D g2d, long delta)
-	{
-		g2d.setColor(colors.backgroundColor);
-		g2d.fillRect(0, 0, winSize.width, winSize.height);
-		
-		if (state == GameState.IN_GAME)
+		if ((profiler != null) && (profiler.isOverlayVisible() == true))
 		{
-			bgScrollPos -= delta*bgScrollMod;
+			profiler.drawOverlay(g2d, 0, playArea.y);
 		}
-		if (bgScrollPos <= 0)
-		{
-			bgScrollPos += bgTextureWidth*2;
-		}
-		
-		bgTexture = new GradientPaint(bgScrollPos, 0, bgTextureCol1, bgTextureWidth+bgScrollPos, 0, bgTextureCol2, true);	
-		g2d.setPaint(bgTexture);
-		g2d.fillRect(0, 0, winSize.width, winSize.height);	
 	}
 	
-	// draw the projectiles in the projectile list
-	private void drawProjectiles(Graphics2D g2d)
+	// draw the player's and the enemies' projectiles
+	private void drawProjectiles(Graphics2D g2d, double alpha)
 	{
-		for (Projectile proj : projectileList)
-		{
-			proj.draw(g2d);
-		}
+		drawProjectiles(g2d, alpha, world.getEnemyProjectiles());
+		drawProjectiles(g2d, alpha, world.getProjectiles());
 	}
 	
-	// draw the enemies in the enemy list
-	private void drawEnemies(Graphics2D g2d)
+	// draw the projectiles in the passed in list
+	private void drawProjectiles(Graphics2D g2d, double alpha, EntityStore<Projectile> projectiles)
 	{
-		for (Enemy e :enemyList)
+		for (int i = 0; i < projectiles.size(); i++)
 		{
-			e.draw(g2d);
+			projectiles.get(i).draw(g2d, alpha, atlas);
 		}
 	}
 	
-	// loop over all of the projectiles in the projectile list
-	// update and remove as necessary
-	private void updateProjectiles(long delta)
+	// draw the enemies in the enemy list
+	private void drawEnemies(Graphics2D g2d, double alpha)
 	{
-		Projectile proj;
-		Iterator<Projectile> it = projectileList.iterator();
+		EntityStore<Enemy> enemies = world.getEnemies();
 		
-		while (it.hasNext() == true)
+		for (int i = 0; i < enemies.size(); i++)
 		{
-			proj = it.next();
-			proj.update(delta);
-			
-			if (proj.isAlive() == false)
-			{
-				// remove projectiles with 0 health remaining
-				// (expired lasers)
-				it.remove();
-				continue;
-			}
-			
-			if (playArea.contains(proj.xPos, proj.yPos) == false)
-			{
-				// projectile is off the screen, remove it from the list
-				it.remove();
-				continue;
-			}
-			
-			// check if this projectile has struck an enemy or the player
-			if (checkCollision(proj) == true)
-			{
-				if (proj.removeOnCollision() == true)
-				{
-					// only remove projectiles that are consumed when 
-					// they impact a sprite
-					it.remove();
-				}
-			}
+			enemies.get(i).draw(g2d, alpha, atlas);
 		}
 	}
 	
-	// loop over the enemies in play and update or remove as necessary
-	// also spawn new enemies
-	private void updateEnemies(long delta)
+	// show or hide the profiler overlay, making the profiler the first time it's shown
+	private void toggleOverlay()
 	{
-		Enemy e;
-		Iterator<Enemy> it = enemyList.iterator();
-		
-		while (it.hasNext() == true)
-		{
-			e = it.next();
-			e.update(delta);
-			
-			if (e.xPos < 0)
-			{
-				// enemy has made it past the left side of the screen, 
-				// remove it from the list
-				it.remove();
-				continue;
-			}
-			if (e.requiresRemoval() == true)
-			{
-				// enemy has been destroyed
-				// add it's bounty to the player's score
-				score += e.getBounty();
-				it.remove();
-			}
-			if (e.shouldFire() == true)
-			{
-				// the enemy has fired a projectile
-				// add it to the projectile list
-				projectileList.addAll(e.fireProjectile());
-			}
-		}
-		
-		// spawn a new enemy if the spawn timer has expired
-		spawnCounter += delta;
-		if (spawnCounter >= spawnRate)
+		if (profiler == null)
 		{
-			e = new Enemy(nextEnemyType(), playArea, 0, 0);
-			e.relocate(playArea.width+e.getOutline().getBounds().width/2, CgShooter.rand.nextInt(playArea.height+1));
-			
-			// point the enemy at the player's current position
-			e.rotateToPoint(player.xPos, player.yPos);
-			enemyList.add(e);
-			
-			// decrement the spawn counter
-			spawnCounter -= spawnRate;
+			profiler = new FrameProfiler();
 		}
+		profiler.toggleOverlay();
+		attachProfiler();
 	}
 	
-	// generate a semi-random enemy type
-	private EnemyType nextEnemyType()
+	// only time frames and ticks while the overlay is showing or the profiler is writing to a file,
+	// so normal play doesn't pay for timing every phase and collision check
+	private void attachProfiler()
 	{
-		int type = CgShooter.rand.nextInt(10);
-		if (type < 7) // 0 to 6 returns type1
-		{
-			return (EnemyType.TYPE1);
-		}
-		else // 7 to 9 returns type2
-		{
-			return (EnemyType.TYPE2);
-		}
+		profiling = (profiler != null) && ((profiler.isOverlayVisible() == true) || (profiler.isDumping() == true));
+		world.setProfiler((profiling == true) ? profiler : null);
 	}
 	
-	// update the player's sprite
-	private void updatePlayer(long delta)
+	// time a phase of the frame if profiling, returning the current time either way
+	private long lap(Phase phase, long startTime)
 	{
-		player.update(delta);
-		if (player.shouldFire() == true)
+		if (profiling == true)
 		{
-			// the player has fired a projectile
-			projectileList.addAll(player.fireProjectile());
-		}
-		
-		// check if the player has collided with an enemy
-		for (Enemy e : enemyList)
-		{
-			if ((e.isAlive() == true) && (player.checkCollision(e)))
-			{
-				// the player crashed into an enemy
-				// damage the player and destroy the enemy
-				player.hitBy(e);
-				e.destroy();
-			}
-		}
-		
-		if (player.isAlive() == false)
-		{
-			// the player is dead, end the game
-			state = GameState.GAME_OVER;
+			return (profiler.lap(phase, startTime));
 		}
+		return (System.nanoTime());
 	}
 	
 	// update the score display with the player's current score
+	// this happens every tick, but the text is only changed when the score does
 	private void updateScoreDisplay()
 	{
-		scoreDisplay.setText("SCORE: "+score);
+		if (world.getScore() == shownScore)
+		{
+			return;
+		}
+		shownScore = world.getScore();
+		scoreDisplay.setText("SCORE: "+shownScore);
 	}
 	
 	// update the name display to reflect what the player has
@@ -494,55 +727,6 @@ public class CgsGameScreen extends Canvas implements MouseListener, KeyListener
 		nameDisplay.setText(name);
 	}
 	
-	// check if the passed in projectile has collided with an enemy or the player
-	// returns true if a collision occured
-	private boolean checkCollision(Projectile proj)
-	{
-		Enemy e;
-		int hits = 0;
-		Iterator<Enemy> it = enemyList.iterator();
-		
-		// loop over the enemies in the enemy list
-		while (it.hasNext() == true)
-		{
-			e = it.next();
-			
-			if (proj.isCreator(e))
-			{
-				// sprites can't shoot themselves
-				continue;
-			}
-			
-			if ((e.isAlive() == true) && (proj.checkCollision(e) == true))
-			{
-				// enemy was hit by projectile
-				e.hitBy(proj);
-				hits++;
-			}
-		}
-		if (hits > 0)
-		{
-			// return true if an enemy was hit by this projectile
-			return (true);
-		}
-		
-		if (proj.isCreator(player))
-		{
-			// the player can't shoot it's self
-			return (false);
-		}
-		
-		if (proj.checkCollision(player) == true)
-		{
-			// the player was hit by the projectile
-			player.hitBy(proj);
-			return (true);
-		}
-		
-		// no one was hit by this projectile
-		return (false);
-	}
-	
 	// set the game state to paused
 	private void pause()
 	{
@@ -554,10 +738,11 @@ public class CgsGameScreen extends Canvas implements MouseListener, KeyListener
 		state = GameState.IN_GAME;
 	}
 	
-	// process any user input, depending on the current game state
-	private void handleUserInput(long delta)
+	// process any user input for the menus, depending on the current game state
+	// input that controls the player is handled by nextInput
+	private void handleUserInput()
 	{
-		Point mPos = getMousePosition();
+		Point mPos = mousePos;
 		
 		switch (state)
 		{
@@ -567,11 +752,10 @@ public class CgsGameScreen extends Canvas implements MouseListener, KeyListener
 				// tell the pause menu where the mouse currently is
 				pauseMenu.updateMousePos(mPos);
 			}
-			if (keyDownEsc == true)
+			if (escPressed == true)
 			{
 				// the escape key unpaues the game
 				unPause();
-				keyDownEsc = false;
 			}
 			break;
 		case GAME_OVER:
@@ -586,74 +770,208 @@ public class CgsGameScreen extends Canvas implements MouseListener, KeyListener
 			{
 				// tell the game menu where the mouse currently is
 				gameMenu.updateMousePos(mPos);
-				
-				// if the player is being dragged around we need to update the 
-				// player's sprite's coordinates
-				if (dragging == true)
-				{
-					if (player.relocate(mPos.x, mPos.y) == false)
-					{
-						// the mouse left the play area, stop dragging
-						dragging = false;
-					}
-				}
-				else
-				{
-					// point the player towards the mouse
-					player.rotateToPoint(mPos.x, mPos.y);
-				}
 			}
 			
-			// handle the state of several keys
-			if (keyDownEsc == true)
+			if (escPressed == true)
 			{
 				// the escape key opens the pause menu
 				pause();
-				keyDownEsc = false;
-			}
-			// the player can be moved witht he arrow keys 
-			// or w a s d
-			if ((keyDownW == true) || (keyDownUp == true))
-			{
-				player.move(0, -player.speedMod*delta);
 			}
-			if ((keyDownA == true) || (keyDownLeft == true))
-			{
-				player.move(-player.speedMod*delta, 0);
-			}
-			if ((keyDownS == true) || (keyDownDown == true))
+			break;
+		default:
+			break;
+		}
+		escPressed = false;
+	}
+	
+	// apply every input event that has arrived since the last tick, in the order they happened
+	// a key that is pressed and let go between two ticks still counts as down for one tick
+	private void drainInput()
+	{
+		long now = System.nanoTime();
+		
+		for (int i = 0; i < NUM_KEYS; i++)
+		{
+			keyTapped[i] = false;
+		}
+		
+		while (inputQueue.poll(polled) == true)
+		{
+			if (profiling == true)
 			{
-				player.move(0, player.speedMod*delta);
+				profiler.record(Phase.LATENCY, now - polled.time);
 			}
-			if ((keyDownD == true) || (keyDownRight == true))
+			switch (polled.type)
 			{
-				player.move(player.speedMod*delta, 0);
+			case KEY_PRESSED:
+				pressKey(keyIndex(polled.code));
+				break;
+			case KEY_RELEASED:
+				releaseKey(keyIndex(polled.code));
+				break;
+			case KEY_TYPED:
+				typeKey(polled.keyChar);
+				break;
+			case MOUSE_PRESSED:
+				if ((state == GameState.IN_GAME) && (polled.code == MouseEvent.BUTTON1))
+				{
+					// the game world decides if the press started dragging the player
+					keyDownLmb = true;
+					lmbPressed = true;
+				}
+				break;
+			case MOUSE_RELEASED:
+				if (polled.code == MouseEvent.BUTTON1)
+				{
+					keyDownLmb = false;
+				}
+				break;
+			case MOUSE_CLICKED:
+				clickPos.setLocation(polled.x, polled.y);
+				clickMenu(clickPos);
+				break;
+			case MOUSE_EXITED:
+				// clear the hover status from any buttons
+				pauseMenu.clearHovered();
+				endMenu.clearHovered();
+				gameMenu.clearHovered();
+				break;
+			default:
+				break;
 			}
-			// the first three number keys can be used to switch weapons
-			if (keyDown1 == true)
+		}
+	}
+	
+	// find the index in keyHeld of a key code, or -1 if the game doesn't use the key
+	private static int keyIndex(int keyCode)
+	{
+		switch (keyCode)
+		{
+		case KeyEvent.VK_W:
+			return (KEY_W);
+		case KeyEvent.VK_A:
+			return (KEY_A);
+		case KeyEvent.VK_S:
+			return (KEY_S);
+		case KeyEvent.VK_D:
+			return (KEY_D);
+		case KeyEvent.VK_UP:
+			return (KEY_UP);
+		case KeyEvent.VK_LEFT:
+			return (KEY_LEFT);
+		case KeyEvent.VK_DOWN:
+			return (KEY_DOWN);
+		case KeyEvent.VK_RIGHT:
+			return (KEY_RIGHT);
+		case KeyEvent.VK_SPACE:
+			return (KEY_SPACE);
+		case KeyEvent.VK_ESCAPE:
+			return (KEY_ESC);
+		case KeyEvent.VK_1:
+			return (KEY_1);
+		case KeyEvent.VK_2:
+			return (KEY_2);
+		case KeyEvent.VK_3:
+			return (KEY_3);
+		case KeyEvent.VK_F3:
+			return (KEY_F3);
+		default:
+			return (-1);
+		}
+	}
+	
+	// a key went down
+	// keys that trigger an action only do so when they first go down, not when they repeat
+	private void pressKey(int key)
+	{
+		if ((key < 0) || (keyHeld[key] == true))
+		{
+			return;
+		}
+		keyHeld[key] = true;
+		keyTapped[key] = true;
+		
+		switch (key)
+		{
+		case KEY_ESC:
+			escPressed = true;
+			break;
+		case KEY_1:
+			switchWeapon(WeaponType.RAPID);
+			break;
+		case KEY_2:
+			switchWeapon(WeaponType.SPREAD);
+			break;
+		case KEY_3:
+			switchWeapon(WeaponType.LASER);
+			break;
+		case KEY_F3:
+			toggleOverlay();
+			break;
+		default:
+			break;
+		}
+	}
+	
+	// a key was let go
+	private void releaseKey(int key)
+	{
+		if (key >= 0)
+		{
+			keyHeld[key] = false;
+		}
+	}
+	
+	// whether a key is down this tick
+	private boolean isKeyDown(int key)
+	{
+		return ((keyHeld[key] == true) || (keyTapped[key] == true));
+	}
+	
+	// a character was typed
+	private void typeKey(char key)
+	{
+		int strLen;
+		
+		if (state == GameState.GAME_OVER)
+		{
+			// the player is typing his/her name
+			strLen = name.length();
+			if ((key == 8) && (strLen > 0)) // key pressed was backspace
 			{
-				switchWeapon(WeaponType.RAPID);
-				keyDown1 = false;
+				// delete the last character
+				name = name.substring(0, strLen-1);
 			}
-			if (keyDown2 == true)
+			else if ((strLen < MAX_NAME_LEN) && 
+					(Character.isIdentifierIgnorable(key) == false))
 			{
-				switchWeapon(WeaponType.SPREAD);
-				keyDown2 = false;
+				// append the character to the end of the name
+				name += key;
 			}
-			if (keyDown3 == true)
+		}
+	}
+	
+	// check if a click occurred on a button of the menu that is showing
+	private void clickMenu(Point mPos)
+	{
+		switch (state)
+		{
+		case PAUSED:
+			if (pauseMenu.contains(mPos) == true)
 			{
-				switchWeapon(WeaponType.LASER);
-				keyDown3 = false;
+				pendingAction = pauseMenu.handleClick(mPos);
 			}
-			// space and the left mouse button fire the player's weapons
-			if ((keyDownSpace == true) || 
-				((keyDownLmb == true) && (dragging == false)))
+			break;
+		case GAME_OVER:
+			if (endMenu.contains(mPos) == true)
 			{
-				player.setFiring(true);
+				pendingAction = endMenu.handleClick(mPos);
 			}
-			else
+			break;
+		case IN_GAME:
+			if (gameMenu.contains(mPos) == true)
 			{
-				player.setFiring(false);
+				pendingAction = gameMenu.handleClick(mPos);
 			}
 			break;
 		default:
@@ -661,6 +979,37 @@ public class CgsGameScreen extends Canvas implements MouseListener, KeyListener
 		}
 	}
 	
+	@Override
+	// build the player's input for this tick from the keyboard and mouse
+	public void nextInput(PlayerInput input)
+	{
+		input.clear();
+		
+		if (mousePos != null)
+		{
+			input.hasMouse = true;
+			input.mouseX = mousePos.x;
+			input.mouseY = mousePos.y;
+		}
+		
+		// the player can be moved witht he arrow keys 
+		// or w a s d
+		input.up = (isKeyDown(KEY_W) == true) || (isKeyDown(KEY_UP) == true);
+		input.left = (isKeyDown(KEY_A) == true) || (isKeyDown(KEY_LEFT) == true);
+		input.down = (isKeyDown(KEY_S) == true) || (isKeyDown(KEY_DOWN) == true);
+		input.right = (isKeyDown(KEY_D) == true) || (isKeyDown(KEY_RIGHT) == true);
+		
+		// space and the left mouse button fire the player's weapons
+		input.fire = isKeyDown(KEY_SPACE);
+		input.mouseDown = keyDownLmb || lmbPressed;
+		input.mousePressed = lmbPressed;
+		lmbPressed = false;
+		
+		// the first three number keys switch weapons, which is done when they are pressed
+		input.weapon = pendingWeapon;
+		pendingWeapon = null;
+	}
+	
 	// perform the necessary action based on the current pendingAction
 	// pendingAction is set when a button is pressed on a menu
 	private void handleAction()
@@ -719,11 +1068,29 @@ public class CgsGameScreen extends Canvas implements MouseListener, KeyListener
 		pendingAction = MenuAction.INVALID_ACTION;
 	}
 	
-	// switch the player's current weapon and update 
-	// the currently highlighted button on the game menu
+	// switch the player's current weapon
+	// the switch happens on the next tick
+	// like moving, this is only up to the player while the game is being played and not replayed,
+	// otherwise the choice would be held over and applied on the first tick they are in control
 	private void switchWeapon(CgsSprite.WeaponType type)
 	{
-		player.switchWeapon(type);
+		if ((state != GameState.IN_GAME) || (replay != null))
+		{
+			return;
+		}
+		pendingWeapon = type;
+	}
+	
+	// update the currently highlighted button on the game menu
+	// to match the player's weapon
+	private void showWeapon(CgsSprite.WeaponType type)
+	{
+		if (type == shownWeapon)
+		{
+			return;
+		}
+		shownWeapon = type;
+		
 		switch (type)
 		{
 		case RAPID:
@@ -760,60 +1127,15 @@ public class CgsGameScreen extends Canvas implements MouseListener, KeyListener
 	// a mouse button has been depressed
 	public void mousePressed(MouseEvent event)
 	{
-		Point mPos = event.getPoint();
-		
-		if (mPos == null)
-		{
-			return;
-		}
-		
-		if (state == GameState.IN_GAME)
-		{
-			if (event.getButton() == MouseEvent.BUTTON1)
-			{
-				if (player.getOutline().contains(mPos) == true)
-				{
-					dragging = true;
-				}
-				keyDownLmb = true;
-			}
-		}
+		inputQueue.offer(InputQueue.EventType.MOUSE_PRESSED, event.getButton(), KeyEvent.CHAR_UNDEFINED, 
+						 event.getX(), event.getY());
 	}
 	@Override
 	// a mouse button has been clicked
 	public void mouseClicked(MouseEvent event)
 	{
-		Point mPos = event.getPoint();
-		
-		if (mPos == null)
-		{
-			return;
-		}
-		
-		// check if the click occurred on a button
-		switch (state)
-		{
-		case PAUSED:
-			if (pauseMenu.contains(mPos) == true)
-			{
-				pendingAction = pauseMenu.handleClick(mPos);
-			}
-			break;
-		case GAME_OVER:
-			if (endMenu.contains(mPos) == true)
-			{
-				pendingAction = endMenu.handleClick(mPos);
-			}
-			break;
-		case IN_GAME:
-			if (gameMenu.contains(mPos) == true)
-			{
-				pendingAction = gameMenu.handleClick(mPos);
-			}
-			break;
-		default:
-			break;
-		}
+		inputQueue.offer(InputQueue.EventType.MOUSE_CLICKED, event.getButton(), KeyEvent.CHAR_UNDEFINED, 
+						 event.getX(), event.getY());
 	}
 	
 	@Override
@@ -824,136 +1146,39 @@ public class CgsGameScreen extends Canvas implements MouseListener, KeyListener
 	// the mouse left the screen
 	public void mouseExited(MouseEvent event)
 	{
-		// clear the hover status from any buttons
-		pauseMenu.clearHovered();
-		endMenu.clearHovered();
-		gameMenu.clearHovered();
-		
-		// the mouse left the screen, stop dragging the player
-		dragging = false;
+		inputQueue.offer(InputQueue.EventType.MOUSE_EXITED, 0, KeyEvent.CHAR_UNDEFINED, 
+						 event.getX(), event.getY());
 	}
 	@Override
 	// a mouse button was released
 	public void mouseReleased(MouseEvent event)
 	{
-		if (event.getButton() == MouseEvent.BUTTON1)
-		{
-			keyDownLmb = false;
-			dragging = false;
-		}
+		inputQueue.offer(InputQueue.EventType.MOUSE_RELEASED, event.getButton(), KeyEvent.CHAR_UNDEFINED, 
+						 event.getX(), event.getY());
 	}
 	@Override
-	// keep track of the state of certain keys
+	// a key went down (or is repeating while held)
 	public void keyPressed(KeyEvent event)
 	{
-		switch(event.getKeyCode())
-		{
-		case KeyEvent.VK_W:
-			keyDownW = true;
-			break;
-		case KeyEvent.VK_A:
-			keyDownA = true;
-			break;
-		case KeyEvent.VK_S:
-			keyDownS = true;
-			break;
-		case KeyEvent.VK_D:
-			keyDownD = true;
-			break;
-		case KeyEvent.VK_UP:
-			keyDownUp = true;
-			break;
-		case KeyEvent.VK_LEFT:
-			keyDownLeft = true;
-			break;
-		case KeyEvent.VK_DOWN:
-			keyDownDown = true;
-			break;
-		case KeyEvent.VK_RIGHT:
-			keyDownRight = true;
-			break;
-		case KeyEvent.VK_SPACE:
-			keyDownSpace = true;
-			break;
-		}
+		inputQueue.offer(InputQueue.EventType.KEY_PRESSED, event.getKeyCode(), KeyEvent.CHAR_UNDEFINED, 0, 0);
 	}
 	@Override
-	// keep track of the state of certain keys
+	// a key was let go
 	public void keyReleased(KeyEvent event)
 	{
-		switch(event.getKeyCode())
-		{
-		case KeyEvent.VK_W:
-			keyDownW = false;
-			break;
-		case KeyEvent.VK_A:
-			keyDownA = false;
-			break;
-		case KeyEvent.VK_S:
-			keyDownS = false;
-			break;
-		case KeyEvent.VK_D:
-			keyDownD = false;
-			break;
-		case KeyEvent.VK_UP:
-			keyDownUp = false;
-			break;
-		case KeyEvent.VK_LEFT:
-			keyDownLeft = false;
-			break;
-		case KeyEvent.VK_DOWN:
-			keyDownDown = false;
-			break;
-		case KeyEvent.VK_RIGHT:
-			keyDownRight = false;
-			break;
-		case KeyEvent.VK_SPACE:
-			keyDownSpace = false;
-			break;
-		// for the rest of the keys, we don't care if they are held down
-		case KeyEvent.VK_ESCAPE:
-			keyDownEsc = !keyDownEsc;
-			break;
-		case KeyEvent.VK_1:
-			keyDown1 = !keyDown1;
-			break;
-		case KeyEvent.VK_2:
-			keyDown2 = !keyDown2;
-			break;
-		case KeyEvent.VK_3:
-			keyDown3 = !keyDown3;
-			break;
-		}
+		inputQueue.offer(InputQueue.EventType.KEY_RELEASED, event.getKeyCode(), KeyEvent.CHAR_UNDEFINED, 0, 0);
 	}
 	@Override
 	// a key was typed
 	public void keyTyped(KeyEvent event)
 	{
-		char key;
-		int strLen;
-		
-		if (state == GameState.GAME_OVER)
-		{
-			// the player is typing his/her name
-			key = event.getKeyChar();
-			strLen = name.length();
-			if ((key == 8) && (strLen > 0)) // key pressed was backspace
-			{
-				// delete the last character
-				name = name.substring(0, strLen-1);
-			}
-			else if ((strLen < MAX_NAME_LEN) && 
-					(Character.isIdentifierIgnorable(key) == false))
-			{
-				// append the character to the end of the name
-				name += key;
-			}
-		}
+		inputQueue.offer(InputQueue.EventType.KEY_TYPED, 0, event.getKeyChar(), 0, 0);
 	}
 	
 	// quit the program entirely
 	private void exitGame()
 	{
+		closeRecording();
 		System.exit(0);
 	}
 }
@@ -5,55 +5,97 @@ import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.RenderingHints;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
 import java.awt.image.BufferStrategy;
 import java.util.LinkedList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import cs4300.Menu.MenuAction;
 import cs4300.MenuStyle.LayoutType;
 
-public class CgsMenu extends Canvas implements MouseListener
+// the menu system, which is only drawn when something on it changes
+// mouse events are passed from the AWT event thread to the menu loop through a queue,
+// and the loop sleeps on the queue until one arrives, so a menu left on screen uses no cpu
+// the menus are drawn on the same surface as the game, and only listen to it while they are shown
+public class CgsMenu implements MouseListener, MouseMotionListener
 {
-	private static final long serialVersionUID = 1L;
 	private static final String GAME_TITLE = "Computer Graphics Shooter";
 	private static final String CREDITS = "Eric Vande Griek - 2011";
+	private static final int EVENT_CAPACITY = 256;
+	private static final long CONTENTS_CHECK_MILLIS = 500;	// how often an idle menu checks if its buffers were lost
 	
 	private enum MenuType
 	{
 		NONE, MAIN_MENU, HIGH_SCORES_MENU
 	}
 	
+	private enum MenuEventType
+	{
+		MOUSE_MOVED, MOUSE_CLICKED, MOUSE_EXITED, EXPOSED
+	}
+	
+	// an event waiting for the menu loop
+	private static class MenuEvent
+	{
+		public MenuEventType type;
+		public Point pos;		// the mouse position, for mouse events
+		
+		public MenuEvent(MenuEventType type, Point pos)
+		{
+			this.type = type;
+			this.pos = pos;
+		}
+	}
+	
 	private CgShooter creator;
+	private Canvas surface;			// where the menus are drawn, shared with the game screen
+	private ComponentAdapter exposeListener;
 	private Menu menu;
+	private Menu mainMenu;			// made once, the high score menu is made each time since the scores change
 	private MenuStyle style;
 	private Dimension winSize;
 	private BufferStrategy bStrat;
 	private LinkedList<HighScore> scoreList;
+	private ArrayBlockingQueue<MenuEvent> events;
 	
 	private boolean switchMenu;
 	private MenuType currentMenu;
 	private MenuAction pendingAction;
 	
-	public CgsMenu(CgShooter creator, Dimension windowSize, ColorScheme colors, LinkedList<HighScore> scoreList)
+	public CgsMenu(CgShooter creator, Canvas surface, Dimension windowSize, ColorScheme colors, LinkedList<HighScore> scoreList)
 	{
 		this.creator = creator;
+		this.surface = surface;
 		winSize = windowSize;
 		this.scoreList = scoreList;
 		style = new MenuStyle(LayoutType.LAYOUT_VERTICAL, colors, 5);
 		pendingAction = MenuAction.INVALID_ACTION;
+		events = new ArrayBlockingQueue<MenuEvent>(EVENT_CAPACITY);
+		exposeListener = new ComponentAdapter()
+								{ public void componentResized(ComponentEvent ce)
+								{ offerEvent(MenuEventType.EXPOSED, null); }
+								  public void componentShown(ComponentEvent ce)
+								{ offerEvent(MenuEventType.EXPOSED, null); } };
 	}
 	
 	// start the menu and enter the loop that switches between sub-menus
+	// returns when the player starts a game
 	public void start()
 	{
-		setIgnoreRepaint(true);
+		bStrat = surface.getBufferStrategy();
 		
-		createBufferStrategy(2);
-		bStrat = getBufferStrategy();
-		
-		addMouseListener(this);	
-		requestFocus();
+		// anything that happened while the game was being played is out of date
+		events.clear();
+		pendingAction = MenuAction.INVALID_ACTION;
+		surface.addMouseListener(this);	
+		surface.addMouseMotionListener(this);
+		surface.addComponentListener(exposeListener);
+		surface.requestFocus();
 		
 		// start with the main menu
 		currentMenu = MenuType.MAIN_MENU;
@@ -73,25 +115,33 @@ public class CgsMenu extends Canvas implements MouseListener
 				break;
 			}
 		}
+		
+		surface.removeMouseListener(this);
+		surface.removeMouseMotionListener(this);
+		surface.removeComponentListener(exposeListener);
 	}
 	
-	// set up the main menu and enter the main loop
+	// set up the main menu the first time it is shown and enter the main loop
 	private void mainMenu()
 	{
 		float btnWidth, btnHeight;
 		Button btn;
 		
-		menu = new Menu("", winSize.width*.5f, winSize.height*.6f, winSize.width*.3f, winSize.height*.6f, style);
-		
-		btnWidth = menu.getWidth()*.7f;
-		btnHeight = menu.getHeight()*.15f;
-		
-		btn = new Button("Start Game", MenuAction.MM_START_GAME, btnWidth, btnHeight);
-		menu.add(btn);
-		btn = new Button("High Scores", MenuAction.MM_HIGH_SCORES, btnWidth, btnHeight);
-		menu.add(btn);
-		btn = new Button("Exit Game", MenuAction.MM_EXIT_GAME, btnWidth, btnHeight);
-		menu.add(btn);
+		if (mainMenu == null)
+		{
+			mainMenu = new Menu("", winSize.width*.5f, winSize.height*.6f, winSize.width*.3f, winSize.height*.6f, style);
+			
+			btnWidth = mainMenu.getWidth()*.7f;
+			btnHeight = mainMenu.getHeight()*.15f;
+			
+			btn = new Button("Start Game", MenuAction.MM_START_GAME, btnWidth, btnHeight);
+			mainMenu.add(btn);
+			btn = new Button("High Scores", MenuAction.MM_HIGH_SCORES, btnWidth, btnHeight);
+			mainMenu.add(btn);
+			btn = new Button("Exit Game", MenuAction.MM_EXIT_GAME, btnWidth, btnHeight);
+			mainMenu.add(btn);
+		}
+		menu = mainMenu;
 		
 		mainLoop();
 	}
@@ -123,19 +173,72 @@ public class CgsMenu extends Canvas implements MouseListener
 	}
 	
 	// the main loop for a menu
+	// the menu is drawn, then the loop waits for input and only draws it again
+	// once hovering or clicking has changed how it looks
 	// the loop is exited when the current menu sets switchMenu to true
 	private void mainLoop()
 	{
 		Point mPos;
+		MenuEvent event;
+		boolean redraw = true;
+		
+		// highlight whatever the mouse is already over, it may not move for a while
+		mPos = surface.getMousePosition();
+		if (mPos != null)
+		{
+			menu.updateMousePos(mPos);
+		}
+		else
+		{
+			menu.clearHovered();
+		}
 		
 		while (switchMenu == false)
 		{
-			mPos = getMousePosition();
+			if (redraw == true)
+			{
+				drawFrame();
+				redraw = false;
+			}
+			
+			// sleep until there is input
+			// the wait times out now and then to check that the screen hasn't been lost
+			try
+			{
+				event = events.poll(CONTENTS_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException ex)
+			{
+				ex.printStackTrace();
+				event = null;
+			}
 			
-			// keep track of where the mouse is on the menu for highlighting purposes
-			if (mPos != null)
+			// handle everything that has arrived, so a burst of mouse movement is only drawn once
+			while (event != null)
 			{
-				menu.updateMousePos(mPos);
+				switch (event.type)
+				{
+				case MOUSE_MOVED:
+					// keep track of where the mouse is on the menu for highlighting purposes
+					menu.updateMousePos(event.pos);
+					break;
+				case MOUSE_CLICKED:
+					if (menu.contains(event.pos) == true)
+					{
+						pendingAction = menu.handleClick(event.pos);
+					}
+					break;
+				case MOUSE_EXITED:
+					// stop highlighting any buttons
+					menu.clearHovered();
+					break;
+				case EXPOSED:
+					redraw = true;
+					break;
+				default:
+					break;
+				}
+				event = events.poll();
 			}
 			
 			// check if the current menu has requested that an action be taken
@@ -144,27 +247,42 @@ public class CgsMenu extends Canvas implements MouseListener
 				handleAction();
 			}
 			
-			Graphics2D g2d = (Graphics2D)bStrat.getDrawGraphics();
-			g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-			
-			redraw(g2d);
-			g2d.dispose();
-			bStrat.show();
-			
-			// suspend the thread for a few milliseconds before processing the next frame
-			// aim for about 30 frames per second
-			try 
+			if ((menu.hasChanged() == true) || (bStrat.contentsLost() == true))
 			{
-				Thread.sleep(33);
-			} 
-			catch (InterruptedException ex) 
-			{
-				ex.printStackTrace();
+				redraw = true;
 			}
 		}
 		switchMenu = false;
 	}
 	
+	// draw the current menu and show it
+	// if the buffers are lost while drawing, draw it again
+	private void drawFrame()
+	{
+		Graphics2D g2d;
+		
+		do
+		{
+			do
+			{
+				g2d = (Graphics2D)bStrat.getDrawGraphics();
+				g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+				
+				redraw(g2d);
+				g2d.dispose();
+			} while (bStrat.contentsRestored() == true);
+			bStrat.show();
+		} while (bStrat.contentsLost() == true);
+		creator.repaint();
+	}
+	
+	// pass an event to the menu loop
+	// the event thread never waits, if the loop has fallen far behind the event is dropped
+	private void offerEvent(MenuEventType type, Point pos)
+	{
+		events.offer(new MenuEvent(type, pos));
+	}
+	
 	// redraw the current menu
 	private void redraw(Graphics2D g2d)
 	{
@@ -183,7 +301,6 @@ public class CgsMenu extends Canvas implements MouseListener
 		}
 		
 		menu.draw(g2d);
-		creator.repaint();
 	}
 	
 	// process an action that was requested by a menu
@@ -257,15 +374,7 @@ public class CgsMenu extends Canvas implements MouseListener
 	// the mouse was clicked, pass it on to the current menu
 	public void mouseClicked(MouseEvent event)
 	{
-		Point mPos = event.getPoint();
-		
-		if (mPos != null)
-		{
-			if (menu.contains(mPos))
-			{
-				pendingAction = menu.handleClick(mPos);
-			}
-		}
+		offerEvent(MenuEventType.MOUSE_CLICKED, event.getPoint());
 	}
 	
 	@Override
@@ -276,10 +385,24 @@ public class CgsMenu extends Canvas implements MouseListener
 	// the mouse left the screen, stop highlighting any buttons
 	public void mouseExited(MouseEvent event)
 	{
-		menu.clearHovered();
+		offerEvent(MenuEventType.MOUSE_EXITED, null);
 	}
 	
 	@Override
 	// not used
 	public void mouseReleased(MouseEvent event)	{}
+	
+	@Override
+	// the mouse moved, the menu may need to highlight a different button
+	public void mouseMoved(MouseEvent event)
+	{
+		offerEvent(MenuEventType.MOUSE_MOVED, event.getPoint());
+	}
+	
+	@Override
+	// the mouse moved with a button held down, highlight the same as any other move
+	public void mouseDragged(MouseEvent event)
+	{
+		offerEvent(MenuEventType.MOUSE_MOVED, event.getPoint());
+	}
 }
@@ -1,15 +1,12 @@
 package cs4300;
 
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.Stroke;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.GeneralPath;
-import java.awt.geom.PathIterator;
-import java.util.LinkedList;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 // the superclass that the sprites in the game use
 public abstract class CgsSprite
@@ -31,14 +28,32 @@ public abstract class CgsSprite
 		}
 	}
 	
-	protected GeneralPath baseOutline;
-	protected GeneralPath transOutline;
+	// the collision layers, a sprite can only collide with sprites whose layer is in its mask
+	public static final int LAYER_PLAYER = 1;
+	public static final int LAYER_PLAYER_PROJECTILE = 2;
+	public static final int LAYER_ENEMY = 4;
+	public static final int LAYER_ENEMY_PROJECTILE = 8;
+	
+	protected static final float LINE_WIDTH = 5;		// the width of a sprite's outline
+	
+	protected SpriteShape shape;		// the sprite's outline, shared with other sprites of the same type
+	protected float[] transVerts;		// the shape's flattened outline where the sprite currently is, used for collisions
+	protected float[] pieceVerts;		// the points of each of the shape's convex pieces in transVerts, one piece after another
+	protected float[] pieceBounds;		// the bounding box and center of each of the shape's convex pieces
+	protected GeneralPath drawOutline;	// the outline where the sprite is being drawn
+	protected float[] drawCoords;		// scratch space for moving the outline into place for drawing
+	protected double boundRadius;		// the shape's radius at the sprite's current scale
+	protected double minX, minY, maxX, maxY;	// the bounding box of transVerts
 	protected double xPos, yPos;		// the position of the center of the sprite
 	protected double engineX, engineY;	// the position of the engine on the sprite, relative to its center
 	protected Color bodyColor, lineColor;
 	protected Stroke lineStroke;
 	protected AffineTransform aTrans;
+	protected AffineTransform drawTrans;	// the transform used to draw the sprite, which may lag aTrans slightly
 	protected double rot;				// the sprite's current CW rotation
+	protected double prevXPos, prevYPos;	// the sprite's position at the start of the current tick
+	protected double prevRot;			// the sprite's rotation at the start of the current tick
+	protected double drawXPos, drawYPos, drawRot;	// where the sprite is being drawn this frame
 	protected float lineWidth;
 	protected double xScale, yScale;
 	protected Rectangle playArea;		// the area that the sprite must remain within
@@ -51,24 +66,54 @@ public abstract class CgsSprite
 	protected long fireCooldownReset;	// the number of milliseconds in between firings
 	protected double xOffset, yOffset;
 	protected float fireRateMod;
+	protected SplittableRandom fxRandom;	// random numbers for effects that don't change the game
+	protected ParticleSystem particles;	// limits how much of the engine's flame is drawn, or null to draw all of it
+	private int flameFrame;				// which of the precomputed flames is drawn next
+	private AffineTransform engineTrans;	// the transform for drawing the engine's flame
+	private GeneralPath enginePath;		// scratch space for drawing the engine's flames
+	private float[] flameCoords;
+	protected int collisionLayer;		// the one layer the sprite is on
+	protected int collisionMask;		// the layers the sprite can collide with
 	
-	public GeneralPath getOutline()	{ return (transOutline); }
 	public void setFiring(boolean fire) { isFiring = fire; }
 	public int getCollisionDamage() { return (collisionDamage); }
+	public WeaponType getWeaponType() { return (weaponType); }
+	public double getMinX() { return (minX); }
+	public double getMinY() { return (minY); }
+	public double getMaxX() { return (maxX); }
+	public double getMaxY() { return (maxY); }
+	public double getBoundRadius() { return (boundRadius); }
+	public void setParticles(ParticleSystem particles) { this.particles = particles; }
+	public int getCollisionLayer() { return (collisionLayer); }
+	public int getCollisionMask() { return (collisionMask); }
 	
 	protected abstract void updateColor();
 	
 	// create a new sprite
-	// the sprite holds a baseOutline that never changes and is the same for 
+	// the sprite holds a shape that never changes and is the same for 
 	// all sprites of the same type as well an AffineTransformation that defines
 	// where the sprite currently is on the screen
 	protected CgsSprite(Rectangle playArea, double centerX, double centerY)
 	{
 		aTrans = new AffineTransform();
+		drawTrans = new AffineTransform();
+		drawOutline = new GeneralPath();
+		engineTrans = new AffineTransform();
+		enginePath = new GeneralPath();
+		flameCoords = new float[8];
+		flameFrame = 0;
+		fxRandom = null;
+		resetSprite(playArea, centerX, centerY);
+	}
+	
+	// put the sprite back into the state it was created in
+	// used by sprites that are reused instead of being created again
+	protected void resetSprite(Rectangle playArea, double centerX, double centerY)
+	{
 		this.playArea = playArea;
-		xPos = centerX;
-		yPos = centerY;
-		rot = 0;
+		xPos = prevXPos = centerX;
+		yPos = prevYPos = centerY;
+		rot = prevRot = 0;
 		lineWidth = 5;
 		xScale = 1;
 		yScale = 1;
@@ -79,28 +124,218 @@ public abstract class CgsSprite
 		fireRateMod = 0;
 	}
 	
+	// whether the passed in sprite is on a layer this sprite can collide with
+	public boolean canCollideWith(CgsSprite spr)
+	{
+		return ((collisionMask & spr.collisionLayer) != 0);
+	}
+	
+	// whether this sprite can collide with anything on the passed in layer
+	public boolean collidesWithLayer(int layer)
+	{
+		return ((collisionMask & layer) != 0);
+	}
+	
+	// set the random numbers used for effects
+	// each sprite starts on a random flame so that engines don't flicker in step
+	public void setFxRandom(SplittableRandom fxRandom)
+	{
+		this.fxRandom = fxRandom;
+		if (fxRandom != null)
+		{
+			flameFrame = fxRandom.nextInt(ParticleSystem.FLAME_VARIANTS);
+		}
+	}
+	
 	// update the sprite based on the amount of time since the last update
 	public void update(long delta)
 	{
 		fireCooldown -= delta*fireRateMod;
 	}
 	
-	// draw the sprite at its current coordinates to the screen
-	public void draw(Graphics2D g2d)
+	// set the shape used to draw the sprite and check collisions
+	protected void setShape(SpriteShape shape)
+	{
+		this.shape = shape;
+		if ((transVerts == null) || (transVerts.length < shape.getNumVerts()*2))
+		{
+			transVerts = new float[shape.getNumVerts()*2];
+		}
+		if ((pieceVerts == null) || (pieceVerts.length < shape.getPieceIndex().length*2))
+		{
+			pieceVerts = new float[shape.getPieceIndex().length*2];
+		}
+		if ((pieceBounds == null) || (pieceBounds.length < shape.getNumPieces()*6))
+		{
+			pieceBounds = new float[shape.getNumPieces()*6];
+		}
+		if ((drawCoords == null) || (drawCoords.length < shape.getNumCoords()))
+		{
+			drawCoords = new float[shape.getNumCoords()];
+		}
+		updateTransform();
+	}
+	
+	// remember where the sprite is at the start of a tick
+	// drawing blends between this and the sprite's current position
+	public void savePrevState()
+	{
+		prevXPos = xPos;
+		prevYPos = yPos;
+		prevRot = rot;
+	}
+	
+	// set the AffineTransform and transformed points to match the sprite's current position
+	// this is done every tick so that collision checks see where the sprite actually is,
+	// no matter how long ago it was last drawn
+	public void updateTransform()
 	{
-		g2d.setStroke(lineStroke);
-		g2d.setColor(lineColor);
-		
-		// set the AffineTransform to match the sprite's current position
 		aTrans.setTransform(Math.cos(rot), Math.sin(rot), -Math.sin(rot), Math.cos(rot), 
 							xPos, yPos);
 		aTrans.scale(xScale, yScale);
-		transOutline = (GeneralPath) baseOutline.clone();
-		transOutline.transform(aTrans);
-		g2d.draw(transOutline);
+		shape.transformVerts(aTrans, transVerts);
+		shape.findPieces(transVerts, pieceVerts, pieceBounds);
+		updateBounds();
+	}
+	
+	// update the bounding circle and bounding box to match transVerts
+	private void updateBounds()
+	{
+		int n = shape.getNumVerts();
+		
+		boundRadius = shape.getRadius()*Math.max(Math.abs(xScale), Math.abs(yScale));
+		
+		if (n == 0)
+		{
+			minX = maxX = xPos;
+			minY = maxY = yPos;
+			return;
+		}
+		minX = maxX = transVerts[0];
+		minY = maxY = transVerts[1];
+		for (int i = 1; i < n; i++)
+		{
+			minX = Math.min(minX, transVerts[i*2]);
+			minY = Math.min(minY, transVerts[i*2+1]);
+			maxX = Math.max(maxX, transVerts[i*2]);
+			maxY = Math.max(maxY, transVerts[i*2+1]);
+		}
+	}
+	
+	// check if the point (x, y) is inside the sprite's outline
+	public boolean containsPoint(double x, double y)
+	{
+		if ((x < minX) || (x > maxX) || (y < minY) || (y > maxY))
+		{
+			// most points are rejected by the bounding box without looking at the outline
+			return (false);
+		}
+		return (shape.contains(transVerts, x, y));
+	}
+	
+	// a quick check of whether this sprite could be touching the passed in sprite
+	// if this returns false the sprites are definitely not touching
+	// and there is no need to look at their outlines
+	public boolean boundsOverlap(CgsSprite spr)
+	{
+		double dx, dy, radii;
+		
+		// first check the bounding circles
+		dx = spr.xPos - xPos;
+		dy = spr.yPos - yPos;
+		radii = boundRadius + spr.boundRadius;
+		if (dx*dx + dy*dy > radii*radii)
+		{
+			return (false);
+		}
+		
+		// then the bounding boxes
+		if ((maxX < spr.minX) || (minX > spr.maxX) ||
+			(maxY < spr.minY) || (minY > spr.maxY))
+		{
+			return (false);
+		}
+		return (true);
+	}
+	
+	// draw the sprite to the screen
+	// alpha is how far between the previous tick and the current tick to draw the sprite,
+	// 0 being where it was at the start of the tick and 1 being where it is now
+	public void draw(Graphics2D g2d, double alpha)
+	{
+		draw(g2d, alpha, null);
+	}
+	
+	// draw the sprite, copying it from the atlas if possible
+	// if the atlas is null or doesn't have the sprite, its outline is drawn instead
+	public void draw(Graphics2D g2d, double alpha, SpriteAtlas atlas)
+	{
+		setDrawTransform(alpha);
+		if ((atlas != null) && (atlas.draw(g2d, this) == true))
+		{
+			return;
+		}
+		
+		g2d.setStroke(lineStroke);
+		g2d.setColor(lineColor);
+		
+		// the shared shape is left alone, the moved outline is written into drawOutline
+		shape.transformInto(drawTrans, drawCoords, drawOutline);
+		g2d.draw(drawOutline);
 		
 		g2d.setColor(bodyColor);
-		g2d.fill(transOutline);
+		g2d.fill(drawOutline);
+	}
+	
+	// whether the sprite can be copied from an atlas image right now
+	// a sprite that is being scaled can't be
+	protected boolean useAtlas()
+	{
+		return ((xScale == 1) && (yScale == 1));
+	}
+	
+	// which of an atlas's tints to draw the sprite with
+	// by default sprites only have one color
+	protected int getTintIndex(int numTints)
+	{
+		return (0);
+	}
+	
+	// how many of an atlas's tints the sprite can be drawn with, counting up from the first
+	protected int getTintCount(int numTints)
+	{
+		return (1);
+	}
+	
+	// the body color of one of an atlas's tints
+	protected Color getTintColor(int tintIndex, int numTints)
+	{
+		return (bodyColor);
+	}
+	
+	// set drawTrans to the sprite's position interpolated between the last two ticks
+	protected void setDrawTransform(double alpha)
+	{
+		double dRot;
+		
+		drawXPos = prevXPos + (xPos-prevXPos)*alpha;
+		drawYPos = prevYPos + (yPos-prevYPos)*alpha;
+		
+		// turn the short way around the circle
+		dRot = rot - prevRot;
+		if (dRot > Math.PI)
+		{
+			dRot -= 2*Math.PI;
+		}
+		else if (dRot < -Math.PI)
+		{
+			dRot += 2*Math.PI;
+		}
+		drawRot = prevRot + dRot*alpha;
+		
+		drawTrans.setTransform(Math.cos(drawRot), Math.sin(drawRot), -Math.sin(drawRot), Math.cos(drawRot), 
+							   drawXPos, drawYPos);
+		drawTrans.scale(xScale, yScale);
 	}
 	
 	// move the sprite by the passed in offsets
@@ -143,28 +378,25 @@ public abstract class CgsSprite
 		return (true);
 	}
 	
-	// have the sprite create a projectile and return it
+	// have the sprite fire its weapon, taking projectiles from the pool and
+	// handing them to the sink
 	// the type and number of projectiles fired is based on the current weapon
-	public LinkedList<Projectile> fireProjectile()
+	public void fireProjectile(ProjectilePool pool, ProjectileSink sink)
 	{
-		LinkedList<Projectile> projList = new LinkedList<Projectile>();
-		
 		switch (weaponType)
 		{
 		case RAPID:
-			projList.add(new Projectile(WeaponType.RAPID, playArea, xPos, yPos, rot, this));
+			sink.addProjectile(pool.acquire(WeaponType.RAPID, playArea, xPos, yPos, rot, this));
 			break;
 		case SPREAD:
-			projList.add(new Projectile(WeaponType.SPREAD, playArea, xPos, yPos, rot-(Math.PI*.08), this));
-			projList.add(new Projectile(WeaponType.SPREAD, playArea, xPos, yPos, rot, this));
-			projList.add(new Projectile(WeaponType.SPREAD, playArea, xPos, yPos, rot+(Math.PI*.08), this));
+			sink.addProjectile(pool.acquire(WeaponType.SPREAD, playArea, xPos, yPos, rot-(Math.PI*.08), this));
+			sink.addProjectile(pool.acquire(WeaponType.SPREAD, playArea, xPos, yPos, rot, this));
+			sink.addProjectile(pool.acquire(WeaponType.SPREAD, playArea, xPos, yPos, rot+(Math.PI*.08), this));
 			break;
 		case LASER:
-			projList.add(new Projectile(WeaponType.LASER, playArea, xPos, yPos, rot, this));
+			sink.addProjectile(pool.acquire(WeaponType.LASER, playArea, xPos, yPos, rot, this));
 			break;
 		}
-		
-		return projList;
 	}
 	
 	// change the current weapon
@@ -215,63 +447,59 @@ public abstract class CgsSprite
 	// check if this sprite has collided with the passed in sprite
 	public boolean checkCollision(CgsSprite spr)
 	{
-		PathIterator pit;
-		double coords[] = new double[6];
-		GeneralPath sprOl = spr.getOutline();
-		int segType;
-		
-		pit = getOutline().getPathIterator(null);
-		pit.currentSegment(coords);
+		if (boundsOverlap(spr) == false)
+		{
+			// the sprites are too far apart to be touching
+			return (false);
+		}
+		return (Narrowphase.overlaps(this, spr));
+	}
+	
+	// check if this sprite has collided with the passed in sprite
+	// if it has, contact is filled in with the direction and distance spr would have to move to be clear
+	public boolean checkCollision(CgsSprite spr, Narrowphase.Contact contact)
+	{
+		if (boundsOverlap(spr) == false)
+		{
+			return (false);
+		}
+		return (Narrowphase.overlaps(this, spr, contact));
+	}
+	
+	// the old collision check, which only looks for points of this sprite's outline inside spr's
+	// it misses outlines that cross without a point inside, and is kept to compare against in the collision benchmarks
+	public boolean checkCollisionByPoints(CgsSprite spr)
+	{
+		if (boundsOverlap(spr) == false)
+		{
+			// the sprites are too far apart to be touching
+			return (false);
+		}
 		
-		// walk through each point along the outline of this sprite
-		while (pit.isDone() == false)
+		// check each point along the outline of this sprite to see if it is within spr's outline
+		for (int i = 0; i < shape.getNumVerts(); i++)
 		{
-			// currentSegment fills the coords array with points in the current segment
-			// if the segment is a line it returns 1
-			// if the segment is a bezier curve it returns 3 
-			// (which also happens to be the number of reference points used to create the curve)
-			// check each point in the segment to see if it is within spr's outline
-			segType = pit.currentSegment(coords);
-			for (int i = 0; i < segType; i++)
+			if (spr.containsPoint(transVerts[i*2], transVerts[i*2+1]) == true)
 			{
-				if (sprOl.contains(coords[0+i*2], coords[1+i*2]) == true)
-				{
-					// at least one point in this sprite's outline is contained in spr's outline
-					return (true);
-				}
+				// at least one point in this sprite's outline is contained in spr's outline
+				return (true);
 			}
-			pit.next();
 		}
 		// all points in this sprite's outline are outside of spr's outline
 		return (false);
 	}
 	
 	// draw an engine at the sprite's engine position
+	// drawTrans must already be set for this frame
+	// the engine's flame is the next of the precomputed flames, so it flickers from frame to frame
 	protected void drawEngine(Graphics2D g2d)
 	{
-		double curveX, curveY;
-		Random r = CgShooter.rand;
-		GeneralPath engine = new GeneralPath();
-		
-		g2d.setStroke(new BasicStroke(6, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER));
-		
-		// the engine is a set of five randomly generated curves
-		for (int i = 0; i < 5; i++)
-		{
-			engine.reset();
-			curveX = engineX;
-			curveY = engineY;
-			engine.moveTo(curveX+=r.nextDouble()*5-2.5, curveY);
-			engine.curveTo(curveX+=r.nextDouble()*5-2.5, curveY+=r.nextDouble()+5, 
-						   curveX+=r.nextDouble()*5-2.5, curveY+=r.nextDouble()+5, 
-						   curveX+=r.nextDouble()*5-2.5, curveY+=r.nextDouble()+5);
-			engine.transform(aTrans);
-			
-			// choose a random reddish-orange color for each curve
-			g2d.setColor(new Color(r.nextInt(155)+100, r.nextInt(100)+50, 0));
-			g2d.draw(engine);
-		}
+		int curves = (particles == null) ? ParticleSystem.FLAME_CURVES : particles.takeFlameCurves();
 		
+		engineTrans.setTransform(drawTrans);
+		engineTrans.translate(engineX, engineY);
+		ParticleSystem.drawFlame(g2d, flameFrame, curves, engineTrans, flameCoords, enginePath);
+		flameFrame = (flameFrame + 1) % ParticleSystem.FLAME_VARIANTS;
 	}
 }
 
@@ -1,6 +1,5 @@
 package cs4300;
 
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
@@ -29,13 +28,16 @@ public class Enemy extends CgsSprite
 	}
 	
 	private static final long DEATH_SPIRAL_LEN = 1000;
-	private static final GeneralPath type1Outline, type2Outline;
+	private static final SpriteShape type1Shape, type2Shape;
+	private static final double maxRadius;	// the bounding radius of the biggest enemy
 	
 	private int bounty; // the number of points awarded for destroying this enemy
 	private long deathSpiral;
+	private boolean deathEffectStarted;	// whether the explosion for the enemy's death has been added
 	private double spiralMod;
 	
 	public int getBounty() { return (bounty); }
+	public static double getMaxRadius() { return (maxRadius); }
 	
 	// create an enemy center around the passed in points
 	// the enemy will be of the passed in type
@@ -47,21 +49,24 @@ public class Enemy extends CgsSprite
 		collisionDamage = type.damage;
 		speedMod = type.speedMod;
 		deathSpiral = 0;
+		deathEffectStarted = false;
 		spiralMod = .015;
 		bounty = type.bounty;
 		isFiring = true;
 		fireRateMod = type.fireRateMod;
+		collisionLayer = LAYER_ENEMY;
+		collisionMask = LAYER_PLAYER | LAYER_PLAYER_PROJECTILE;
 		
 		// determine the shape of the enemy based on its type
 		switch (type)
 		{
 		case TYPE1:
-			baseOutline = type1Outline;
+			setShape(type1Shape);
 			engineX = 0;
 			engineY = 12;
 			break;
 		case TYPE2:
-			baseOutline = type2Outline;
+			setShape(type2Shape);
 			engineX = 0;
 			engineY = 5;
 			break;
@@ -69,18 +74,19 @@ public class Enemy extends CgsSprite
 			break;
 		}
 		
-		transOutline = (GeneralPath) baseOutline.clone();
 		updateColor();
-		lineStroke = new BasicStroke(5, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
+		lineStroke = RenderCache.getStroke(LINE_WIDTH);
 		xOffset = Math.sin(rot) * speedMod;
 		yOffset = -Math.cos(rot) * speedMod;
 	}
 	
 	// enemy shapes are statically allocated to save space
-	// each sprite holds a pointer to a baseOutline that never changes
+	// each sprite holds a pointer to a shape that never changes
 	// and an AffineTransform that defines the sprites position on screen 
 	static
 	{
+		GeneralPath type1Outline, type2Outline;
+		
 		// draw the shape of enemy type 1
 		type1Outline = new GeneralPath();
 		type1Outline.moveTo( +5, -30);
@@ -117,14 +123,31 @@ public class Enemy extends CgsSprite
 		type2Outline.lineTo( -3, -15);
 		type2Outline.lineTo( -6, -20);
 		type2Outline.lineTo(  0, -25);
+		
+		type1Shape = ShapeRegistry.register("enemy.type1", type1Outline);
+		type2Shape = ShapeRegistry.register("enemy.type2", type2Outline);
+		maxRadius = Math.max(type1Shape.getRadius(), type2Shape.getRadius());
 	}
 	
 	@Override
 	// draw the sprite
-	public void draw(Graphics2D g2d)
+	public void draw(Graphics2D g2d, double alpha, SpriteAtlas atlas)
 	{
+		setDrawTransform(alpha);
 		drawEngine(g2d);
-		super.draw(g2d);
+		super.draw(g2d, alpha, atlas);
+	}
+	
+	// whether the enemy has just been destroyed and its explosion should start
+	// only returns true once
+	public boolean startDeathEffect()
+	{
+		if ((isAlive() == false) && (deathEffectStarted == false))
+		{
+			deathEffectStarted = true;
+			return (true);
+		}
+		return (false);
 	}
 	
 	@Override
@@ -165,6 +188,31 @@ public class Enemy extends CgsSprite
 		yOffset = -Math.cos(rot) * speedMod;
 	}
 	
+	@Override
+	// the sprite's atlas tint depends on its health
+	protected int getTintIndex(int numTints)
+	{
+		float colorMod = (float)health/maxHealth;
+		if (colorMod < 0)
+		{
+			colorMod = 0;
+		}
+		return (Math.round(colorMod*(numTints-1)));
+	}
+	
+	@Override
+	// any of the tints can be used as the sprite takes damage
+	protected int getTintCount(int numTints)
+	{
+		return (numTints);
+	}
+	
+	@Override
+	protected Color getTintColor(int tintIndex, int numTints)
+	{
+		return (SpriteAtlas.healthTint(tintIndex, numTints));
+	}
+	
 	@Override
 	// update the sprite's color based on it's health
 	protected void updateColor()
@@ -174,7 +222,7 @@ public class Enemy extends CgsSprite
 		{
 			colorMod = 0;
 		}
-		bodyColor = new Color(1-colorMod, colorMod, 0);
+		bodyColor = RenderCache.getHealthColor(colorMod);
 		lineColor = Color.BLUE;
 	}
 }
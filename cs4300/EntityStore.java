@@ -0,0 +1,72 @@
+package cs4300;
+
+// a list of the sprites in play, kept in one array with no gaps
+// the update loops walk it by slot instead of following list links from sprite to sprite,
+// and adding a sprite doesn't allocate a list node
+// removing a sprite moves the last sprite into its slot, so order is not kept
+public class EntityStore<T extends CgsSprite>
+{
+	private static final int INITIAL_CAPACITY = 64;
+	
+	private Object[] sprites;
+	private int count;
+	
+	public int size() { return (count); }
+	
+	public EntityStore()
+	{
+		this(INITIAL_CAPACITY);
+	}
+	
+	public EntityStore(int capacity)
+	{
+		sprites = new Object[Math.max(capacity, 1)];
+		count = 0;
+	}
+	
+	// get the sprite in the passed in slot
+	@SuppressWarnings("unchecked")
+	public T get(int index)
+	{
+		return ((T)sprites[index]);
+	}
+	
+	// add a sprite to the end of the store and return its slot
+	public int add(T spr)
+	{
+		Object[] bigger;
+		
+		if (count == sprites.length)
+		{
+			bigger = new Object[sprites.length*2];
+			System.arraycopy(sprites, 0, bigger, 0, count);
+			sprites = bigger;
+		}
+		sprites[count] = spr;
+		return (count++);
+	}
+	
+	// remove the sprite in the passed in slot and return it
+	// the last sprite in the store is moved into the slot, so when removing
+	// while looping over the store the same slot has to be looked at again
+	public T remove(int index)
+	{
+		T removed = get(index);
+		int last = count-1;
+		
+		sprites[index] = sprites[last];
+		sprites[last] = null;
+		count--;
+		return (removed);
+	}
+	
+	// remove every sprite from the store
+	public void clear()
+	{
+		for (int i = 0; i < count; i++)
+		{
+			sprites[i] = null;
+		}
+		count = 0;
+	}
+}
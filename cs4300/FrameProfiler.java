@@ -0,0 +1,329 @@
+package cs4300;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+// records how long each phase of a frame takes, along with how many sprites were in play,
+// so that slow frames can be tied to what the game was doing at the time
+// timings are kept in histograms over a fixed interval (one second by default); at the end
+// of each interval the summary is shown on the overlay and written to the dump file if there is one
+// the dump file is written as CSV, or as one JSON object per line if its name ends in .json
+public class FrameProfiler
+{
+	public enum Phase
+	{
+		INPUT("input"), PROJECTILES("projectiles"), ENEMIES("enemies"), PLAYER("player"),
+		COLLISION("collision"), REDRAW("redraw"), BACKGROUND("background"),	// background is part of redraw
+		SHOW("show"), SLEEP("sleep"), FRAME("frame"),
+		LATENCY("latency");		// from an input event happening to the tick that handles it
+		
+		private String label;
+		
+		public String getLabel() { return (label); }
+		
+		private Phase(String label)
+		{
+			this.label = label;
+		}
+	}
+	
+	public static final long DEF_INTERVAL = 1000;		// milliseconds between summaries
+	private static final long NANOS_PER_MILLI = 1000000L;
+	private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+	private static final Color OVERLAY_BG = new Color(0, 0, 0, 180);
+	private static final int LINE_HEIGHT = 14;
+	
+	private LatencyHistogram[] histograms;
+	private long intervalNanos;
+	private long intervalStart;
+	private long startTime;
+	
+	// sprite counts over the current interval
+	private long frames;
+	private long projectileTotal, enemyTotal;
+	private int maxProjectiles, maxEnemies;
+	private long slowestFrame;
+	private int slowestProjectiles, slowestEnemies;	// the counts during the slowest frame
+	
+	private boolean overlayVisible;
+	private String[] overlayLines;
+	private PrintWriter dumpWriter;
+	private boolean dumpJson;
+	private StringBuilder line;
+	
+	public boolean isOverlayVisible() { return (overlayVisible); }
+	public void setOverlayVisible(boolean visible) { overlayVisible = visible; }
+	public void toggleOverlay() { overlayVisible = !overlayVisible; }
+	public boolean isDumping() { return (dumpWriter != null); }
+	public LatencyHistogram getHistogram(Phase phase) { return (histograms[phase.ordinal()]); }
+	
+	public FrameProfiler()
+	{
+		histograms = new LatencyHistogram[Phase.values().length];
+		for (int i = 0; i < histograms.length; i++)
+		{
+			histograms[i] = new LatencyHistogram();
+		}
+		overlayLines = new String[histograms.length+4];
+		for (int i = 0; i < overlayLines.length; i++)
+		{
+			overlayLines[i] = "";
+		}
+		line = new StringBuilder(1024);
+		overlayVisible = false;
+		dumpWriter = null;
+		setInterval(DEF_INTERVAL);
+		startTime = intervalStart = System.nanoTime();
+	}
+	
+	// set how many milliseconds the summaries cover
+	public void setInterval(long millis)
+	{
+		if (millis <= 0)
+		{
+			millis = DEF_INTERVAL;
+		}
+		intervalNanos = millis*NANOS_PER_MILLI;
+	}
+	
+	// start writing a summary to the passed in file at the end of each interval
+	// the file is replaced if it already exists
+	public void setDumpFile(String path)
+	{
+		closeDumpFile();
+		try
+		{
+			dumpWriter = new PrintWriter(new FileWriter(path));
+		}
+		catch (IOException ex)
+		{
+			ex.printStackTrace();
+			dumpWriter = null;
+			return;
+		}
+		dumpJson = path.toLowerCase().endsWith(".json");
+		if (dumpJson == false)
+		{
+			writeCsvHeader();
+		}
+	}
+	
+	// stop writing summaries
+	public void closeDumpFile()
+	{
+		if (dumpWriter != null)
+		{
+			dumpWriter.close();
+			dumpWriter = null;
+		}
+	}
+	
+	// record how long a phase took
+	public void record(Phase phase, long nanos)
+	{
+		histograms[phase.ordinal()].record(nanos);
+	}
+	
+	// record the time since startTime against a phase
+	// returns the current time, so that back to back phases can be timed with one call each
+	public long lap(Phase phase, long startTime)
+	{
+		long now = System.nanoTime();
+		
+		histograms[phase.ordinal()].record(now - startTime);
+		return (now);
+	}
+	
+	// record the length of a whole frame and the number of sprites that were in play
+	// this also ends the interval if enough time has passed
+	public void endFrame(long frameNanos, int numProjectiles, int numEnemies)
+	{
+		long now;
+		
+		histograms[Phase.FRAME.ordinal()].record(frameNanos);
+		frames++;
+		projectileTotal += numProjectiles;
+		enemyTotal += numEnemies;
+		maxProjectiles = Math.max(maxProjectiles, numProjectiles);
+		maxEnemies = Math.max(maxEnemies, numEnemies);
+		if (frameNanos >= slowestFrame)
+		{
+			slowestFrame = frameNanos;
+			slowestProjectiles = numProjectiles;
+			slowestEnemies = numEnemies;
+		}
+		
+		now = System.nanoTime();
+		if (now - intervalStart >= intervalNanos)
+		{
+			endInterval(now);
+		}
+	}
+	
+	// draw the last interval's summary in the top left corner of the screen
+	public void drawOverlay(Graphics2D g2d, int x, int y)
+	{
+		int width = 0;
+		
+		g2d.setFont(OVERLAY_FONT);
+		for (int i = 0; i < overlayLines.length; i++)
+		{
+			width = Math.max(width, g2d.getFontMetrics().stringWidth(overlayLines[i]));
+		}
+		g2d.setColor(OVERLAY_BG);
+		g2d.fillRect(x, y, width+10, overlayLines.length*LINE_HEIGHT+8);
+		g2d.setColor(Color.WHITE);
+		for (int i = 0; i < overlayLines.length; i++)
+		{
+			g2d.drawString(overlayLines[i], x+5, y+4+(i+1)*LINE_HEIGHT-3);
+		}
+	}
+	
+	// summarize the interval that just ended and start a new one
+	private void endInterval(long now)
+	{
+		updateOverlay();
+		if (dumpWriter != null)
+		{
+			if (dumpJson == true)
+			{
+				writeJson((now-startTime)/NANOS_PER_MILLI);
+			}
+			else
+			{
+				writeCsv((now-startTime)/NANOS_PER_MILLI);
+			}
+		}
+		
+		for (int i = 0; i < histograms.length; i++)
+		{
+			histograms[i].reset();
+		}
+		frames = 0;
+		projectileTotal = enemyTotal = 0;
+		maxProjectiles = maxEnemies = 0;
+		slowestFrame = 0;
+		slowestProjectiles = slowestEnemies = 0;
+		intervalStart = now;
+	}
+	
+	// rebuild the overlay text
+	// this only happens once an interval, so drawing the overlay doesn't create any strings
+	private void updateOverlay()
+	{
+		LatencyHistogram hist;
+		Phase[] phases = Phase.values();
+		
+		overlayLines[0] = String.format("%-12s %7s %8s %8s %8s %8s",
+										"phase (us)", "count", "p50", "p99", "p99.9", "max");
+		for (int i = 0; i < phases.length; i++)
+		{
+			hist = histograms[i];
+			overlayLines[i+1] = String.format("%-12s %7d %8.1f %8.1f %8.1f %8.1f", phases[i].getLabel(),
+											  hist.getCount(), micros(hist.getPercentile(50)),
+											  micros(hist.getPercentile(99)), micros(hist.getPercentile(99.9)),
+											  micros(hist.getMax()));
+		}
+		overlayLines[phases.length+1] = String.format("projectiles avg %d max %d, enemies avg %d max %d, " +
+													  "slowest frame %d/%d",
+													  average(projectileTotal), maxProjectiles,
+													  average(enemyTotal), maxEnemies,
+													  slowestProjectiles, slowestEnemies);
+		overlayLines[phases.length+2] = RenderCache.getSummary();
+		overlayLines[phases.length+3] = Menu.getSummary();
+	}
+	
+	private void writeCsvHeader()
+	{
+		line.setLength(0);
+		line.append("time_ms,frames,projectiles_avg,projectiles_max,enemies_avg,enemies_max,");
+		line.append("slowest_projectiles,slowest_enemies");
+		for (Phase phase : Phase.values())
+		{
+			line.append(',').append(phase.getLabel()).append("_count");
+			line.append(',').append(phase.getLabel()).append("_p50_ns");
+			line.append(',').append(phase.getLabel()).append("_p99_ns");
+			line.append(',').append(phase.getLabel()).append("_p999_ns");
+			line.append(',').append(phase.getLabel()).append("_max_ns");
+		}
+		dumpWriter.println(line);
+		dumpWriter.flush();
+	}
+	
+	// write one CSV row for the interval
+	private void writeCsv(long timeMillis)
+	{
+		LatencyHistogram hist;
+		
+		line.setLength(0);
+		line.append(timeMillis).append(',').append(frames);
+		line.append(',').append(average(projectileTotal)).append(',').append(maxProjectiles);
+		line.append(',').append(average(enemyTotal)).append(',').append(maxEnemies);
+		line.append(',').append(slowestProjectiles).append(',').append(slowestEnemies);
+		for (int i = 0; i < histograms.length; i++)
+		{
+			hist = histograms[i];
+			line.append(',').append(hist.getCount());
+			line.append(',').append(hist.getPercentile(50));
+			line.append(',').append(hist.getPercentile(99));
+			line.append(',').append(hist.getPercentile(99.9));
+			line.append(',').append(hist.getMax());
+		}
+		dumpWriter.println(line);
+		dumpWriter.flush();
+	}
+	
+	// write one JSON object for the interval, on a line of its own
+	private void writeJson(long timeMillis)
+	{
+		LatencyHistogram hist;
+		Phase[] phases = Phase.values();
+		
+		line.setLength(0);
+		line.append("{\"time_ms\":").append(timeMillis);
+		line.append(",\"frames\":").append(frames);
+		line.append(",\"projectiles\":{\"avg\":").append(average(projectileTotal));
+		line.append(",\"max\":").append(maxProjectiles);
+		line.append(",\"slowest\":").append(slowestProjectiles).append('}');
+		line.append(",\"enemies\":{\"avg\":").append(average(enemyTotal));
+		line.append(",\"max\":").append(maxEnemies);
+		line.append(",\"slowest\":").append(slowestEnemies).append('}');
+		line.append(",\"phases\":{");
+		for (int i = 0; i < phases.length; i++)
+		{
+			hist = histograms[i];
+			if (i > 0)
+			{
+				line.append(',');
+			}
+			line.append('"').append(phases[i].getLabel()).append("\":{");
+			line.append("\"count\":").append(hist.getCount());
+			line.append(",\"p50_ns\":").append(hist.getPercentile(50));
+			line.append(",\"p99_ns\":").append(hist.getPercentile(99));
+			line.append(",\"p999_ns\":").append(hist.getPercentile(99.9));
+			line.append(",\"max_ns\":").append(hist.getMax()).append('}');
+		}
+		line.append("}}");
+		dumpWriter.println(line);
+		dumpWriter.flush();
+	}
+	
+	// the average of a per frame total over the interval
+	private long average(long total)
+	{
+		if (frames == 0)
+		{
+			return (0);
+		}
+		return (total/frames);
+	}
+	
+	private static double micros(long nanos)
+	{
+		return (nanos/1000.0);
+	}
+}
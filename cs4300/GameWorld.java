@@ -0,0 +1,563 @@
+package cs4300;
+
+import java.awt.Rectangle;
+import java.util.SplittableRandom;
+
+import cs4300.CgsSprite.WeaponType;
+import cs4300.Enemy.EnemyType;
+import cs4300.FrameProfiler.Phase;
+
+// the game world, which holds and simulates everything that happens during play
+// the world knows nothing about windows, menus or the keyboard, so it can be run
+// without a display, driven by any InputSource
+public class GameWorld implements ProjectileSink
+{
+	public static final int DEF_SPAWN_RATE = 500;
+	private static final int GRID_CELL_SIZE = 64;
+	private static final int INITIAL_POOL_SIZE = 256;
+	
+	private Rectangle playArea;
+	private Player player;
+	private double startX, startY;		// where the player starts each game
+	private EntityStore<Projectile> projectiles;		// the player's projectiles
+	private EntityStore<Projectile> enemyProjectiles;	// the enemies' projectiles
+	private ProjectilePool projectilePool;
+	private EntityStore<Enemy> enemies;
+	private SpatialGrid<Enemy> enemyGrid;	// finds the enemies near a point without checking all of them
+	private long spawnCounter;
+	private long spawnRate;
+	private int score;
+	private boolean dragging;
+	private long tickCount;
+	private FrameProfiler profiler;		// times the phases of each tick, or null if not profiling
+	private long collisionNanos;		// time spent checking projectile collisions this tick
+	private long seed;
+	private SplittableRandom random;	// decides everything that affects the game
+	private SplittableRandom fxRandom;	// only used for visual effects, so drawing can't change the game
+	private ParticleSystem particles;	// the world's explosions, or null if nothing is being drawn
+	
+	public Player getPlayer() { return (player); }
+	public EntityStore<Projectile> getProjectiles() { return (projectiles); }
+	public EntityStore<Projectile> getEnemyProjectiles() { return (enemyProjectiles); }
+	public EntityStore<Enemy> getEnemies() { return (enemies); }
+	public ProjectilePool getProjectilePool() { return (projectilePool); }
+	public Rectangle getPlayArea() { return (playArea); }
+	public double getStartX() { return (startX); }
+	public double getStartY() { return (startY); }
+	public int getScore() { return (score); }
+	public long getTickCount() { return (tickCount); }
+	public long getSeed() { return (seed); }
+	public int getNumProjectiles() { return (projectiles.size() + enemyProjectiles.size()); }
+	public boolean isDragging() { return (dragging); }
+	public void setSpawnRate(long rate) { spawnRate = rate; }
+	public void setStart(double x, double y) { startX = x; startY = y; }
+	public void setProfiler(FrameProfiler profiler) { this.profiler = profiler; }
+	public ParticleSystem getParticles() { return (particles); }
+	
+	// create a new world with the player at the passed in position
+	// the world's random numbers are seeded from the clock
+	public GameWorld(Rectangle playArea, double playerX, double playerY)
+	{
+		this(playArea, playerX, playerY, new SplittableRandom().nextLong());
+	}
+	
+	// create a new world with the player at the passed in position
+	// two worlds with the same seed given the same input play out exactly the same
+	public GameWorld(Rectangle playArea, double playerX, double playerY, long seed)
+	{
+		this.playArea = playArea;
+		startX = playerX;
+		startY = playerY;
+		
+		enemies = new EntityStore<Enemy>();
+		enemyGrid = new SpatialGrid<Enemy>(playArea, GRID_CELL_SIZE);
+		player = new Player(playArea, playerX, playerY);
+		projectiles = new EntityStore<Projectile>(INITIAL_POOL_SIZE);
+		enemyProjectiles = new EntityStore<Projectile>(INITIAL_POOL_SIZE);
+		projectilePool = new ProjectilePool(INITIAL_POOL_SIZE);
+		reset(seed);
+	}
+	
+	// start the world over with its random numbers seeded from the clock
+	public void reset()
+	{
+		reset(new SplittableRandom().nextLong());
+	}
+	
+	// start the world over, so it plays out exactly like a new world made with the passed in seed
+	// the player, entity stores, grid, projectile pool and particles are kept,
+	// so a new game doesn't have to allocate them again
+	public void reset(long seed)
+	{
+		SplittableRandom root = new SplittableRandom(seed);
+		
+		this.seed = seed;
+		random = root.split();
+		fxRandom = root.split();
+		
+		// projectiles still in play go back to the pool
+		while (projectiles.size() > 0)
+		{
+			removeProjectile(projectiles, projectiles.size()-1);
+		}
+		while (enemyProjectiles.size() > 0)
+		{
+			removeProjectile(enemyProjectiles, enemyProjectiles.size()-1);
+		}
+		enemies.clear();
+		spawnCounter = 0;
+		spawnRate = DEF_SPAWN_RATE;
+		
+		player.reset(startX, startY);
+		player.setFxRandom(fxRandom);
+		player.updateTransform();
+		player.switchWeapon(WeaponType.RAPID);
+		if (particles != null)
+		{
+			particles.clear();
+		}
+		
+		score = 0;
+		dragging = false;
+		tickCount = 0;
+	}
+	
+	// set the particle system that draws the explosions and engine flames
+	// worlds that are never drawn don't need one
+	public void setParticles(ParticleSystem particles)
+	{
+		this.particles = particles;
+		player.setParticles(particles);
+		for (int i = 0; i < enemies.size(); i++)
+		{
+			enemies.get(i).setParticles(particles);
+		}
+	}
+	
+	// advance the world by one tick using the passed in input
+	public void tick(long delta, PlayerInput input)
+	{
+		if (profiler != null)
+		{
+			tickProfiled(delta, input);
+			return;
+		}
+		
+		savePrevStates();
+		applyInput(input, delta);
+		updateProjectiles(projectiles, delta);
+		updateProjectiles(enemyProjectiles, delta);
+		updateEnemies(delta);
+		updatePlayer(delta);
+		tickCount++;
+	}
+	
+	// the same as tick, in exactly the same order, but each phase is timed by the profiler
+	// so profiling never changes how the game plays out
+	// collision checks are timed on their own and left out of the projectile time,
+	// and applying the input is counted as part of the player's time
+	private void tickProfiled(long delta, PlayerInput input)
+	{
+		long time, inputNanos;
+		
+		savePrevStates();
+		time = System.nanoTime();
+		applyInput(input, delta);
+		inputNanos = System.nanoTime() - time;
+		
+		collisionNanos = 0;
+		time = System.nanoTime();
+		updateProjectiles(projectiles, delta);
+		updateProjectiles(enemyProjectiles, delta);
+		profiler.record(Phase.PROJECTILES, System.nanoTime() - time - collisionNanos);
+		profiler.record(Phase.COLLISION, collisionNanos);
+		
+		time = System.nanoTime();
+		updateEnemies(delta);
+		time = profiler.lap(Phase.ENEMIES, time);
+		updatePlayer(delta);
+		profiler.record(Phase.PLAYER, System.nanoTime() - time + inputNanos);
+		tickCount++;
+	}
+	
+	// return whether the player is still alive
+	public boolean isPlayerAlive()
+	{
+		return (player.isAlive());
+	}
+	
+	// record where everything is at the start of the tick so that
+	// frames can be drawn in between ticks
+	// this should also be called on ticks where the world is not advanced (while paused)
+	public void savePrevStates()
+	{
+		player.savePrevState();
+		for (int i = 0; i < projectiles.size(); i++)
+		{
+			projectiles.get(i).savePrevState();
+		}
+		for (int i = 0; i < enemyProjectiles.size(); i++)
+		{
+			enemyProjectiles.get(i).savePrevState();
+		}
+		for (int i = 0; i < enemies.size(); i++)
+		{
+			enemies.get(i).savePrevState();
+		}
+	}
+	
+	@Override
+	// put a newly fired projectile into play
+	// the player's and the enemies' projectiles are kept apart, since they can never hit each other's targets
+	public void addProjectile(Projectile proj)
+	{
+		if (proj.getCollisionLayer() == CgsSprite.LAYER_ENEMY_PROJECTILE)
+		{
+			enemyProjectiles.add(proj);
+		}
+		else
+		{
+			projectiles.add(proj);
+		}
+	}
+	
+	// put an enemy into play outside of the normal spawning
+	// the enemy's transform should already be up to date
+	public void addEnemy(Enemy e)
+	{
+		e.setFxRandom(fxRandom);
+		e.setParticles(particles);
+		enemies.add(e);
+	}
+	
+	// apply the player's input for this tick to the player's sprite
+	private void applyInput(PlayerInput input, long delta)
+	{
+		if (input.weapon != null)
+		{
+			player.switchWeapon(input.weapon);
+		}
+		
+		// the player's ship can be dragged around by clicking on it
+		if ((input.mousePressed == true) && (input.hasMouse == true) &&
+			(player.containsPoint(input.mouseX, input.mouseY) == true))
+		{
+			dragging = true;
+		}
+		if ((input.mouseDown == false) || (input.hasMouse == false))
+		{
+			// the button was let go or the mouse left the screen, stop dragging
+			dragging = false;
+		}
+		
+		if (input.hasMouse == true)
+		{
+			// if the player is being dragged around we need to update the
+			// player's sprite's coordinates
+			if (dragging == true)
+			{
+				if (player.relocate(input.mouseX, input.mouseY) == false)
+				{
+					// the mouse left the play area, stop dragging
+					dragging = false;
+				}
+			}
+			else
+			{
+				// point the player towards the mouse
+				player.rotateToPoint(input.mouseX, input.mouseY);
+			}
+		}
+		
+		// move the player
+		if (input.up == true)
+		{
+			player.move(0, -player.speedMod*delta);
+		}
+		if (input.left == true)
+		{
+			player.move(-player.speedMod*delta, 0);
+		}
+		if (input.down == true)
+		{
+			player.move(0, player.speedMod*delta);
+		}
+		if (input.right == true)
+		{
+			player.move(player.speedMod*delta, 0);
+		}
+		
+		// the mouse button only fires when it isn't being used to drag the player
+		if ((input.fire == true) ||
+			((input.mouseDown == true) && (dragging == false)))
+		{
+			player.setFiring(true);
+		}
+		else
+		{
+			player.setFiring(false);
+		}
+	}
+	
+	// loop over all of the projectiles in the passed in store
+	// update and remove as necessary
+	// removing a projectile moves the last one into its slot, 
+	// so the slot is only advanced when nothing was removed
+	private void updateProjectiles(EntityStore<Projectile> store, long delta)
+	{
+		Projectile proj;
+		int i = 0;
+		
+		while (i < store.size())
+		{
+			proj = store.get(i);
+			proj.update(delta);
+			proj.updateTransform();
+			
+			if (proj.isAlive() == false)
+			{
+				// remove projectiles with 0 health remaining
+				// (expired lasers)
+				removeProjectile(store, i);
+				continue;
+			}
+			
+			if (playArea.contains(proj.xPos, proj.yPos) == false)
+			{
+				// projectile is off the screen, remove it
+				removeProjectile(store, i);
+				continue;
+			}
+			
+			// check if this projectile has struck an enemy or the player
+			// only remove projectiles that are consumed when they impact a sprite
+			if ((timedCheckCollision(proj) == true) && (proj.removeOnCollision() == true))
+			{
+				removeProjectile(store, i);
+				continue;
+			}
+			i++;
+		}
+	}
+	
+	// take a projectile out of play and return it to the pool
+	private void removeProjectile(EntityStore<Projectile> store, int index)
+	{
+		projectilePool.release(store.remove(index));
+	}
+	
+	// loop over the enemies in play and update or remove as necessary
+	// also spawn new enemies
+	private void updateEnemies(long delta)
+	{
+		Enemy e;
+		boolean destroyed;
+		int i = 0;
+		
+		while (i < enemies.size())
+		{
+			e = enemies.get(i);
+			e.update(delta);
+			e.updateTransform();
+			if ((particles != null) && (e.startDeathEffect() == true))
+			{
+				// the enemy was destroyed since the last tick, blow it up
+				particles.explode(e.xPos, e.yPos, fxRandom);
+			}
+			
+			if (e.xPos < 0)
+			{
+				// enemy has made it past the left side of the screen, remove it
+				enemies.remove(i);
+				continue;
+			}
+			destroyed = e.requiresRemoval();
+			if (destroyed == true)
+			{
+				// enemy has been destroyed
+				// add it's bounty to the player's score
+				score += e.getBounty();
+			}
+			if (e.shouldFire() == true)
+			{
+				// the enemy has fired a projectile
+				e.fireProjectile(projectilePool, this);
+			}
+			if (destroyed == true)
+			{
+				enemies.remove(i);
+				continue;
+			}
+			i++;
+		}
+		
+		if (particles != null)
+		{
+			particles.update(delta);
+		}
+		
+		// spawn a new enemy if the spawn timer has expired
+		spawnCounter += delta;
+		if (spawnCounter >= spawnRate)
+		{
+			e = new Enemy(nextEnemyType(), playArea, 0, 0);
+			e.relocate(playArea.width+(e.getMaxX()-e.getMinX())/2, random.nextInt(playArea.height+1));
+			e.setFxRandom(fxRandom);
+			e.setParticles(particles);
+			
+			// point the enemy at the player's current position
+			e.rotateToPoint(player.xPos, player.yPos);
+			e.savePrevState();
+			e.updateTransform();
+			enemies.add(e);
+			
+			// decrement the spawn counter
+			spawnCounter -= spawnRate;
+		}
+		
+		buildEnemyGrid();
+	}
+	
+	// sort the enemies into the grid
+	// enemies only move in updateEnemies, so the grid built here is used for 
+	// the player's crash check this tick and the projectile checks next tick
+	private void buildEnemyGrid()
+	{
+		Enemy e;
+		
+		enemyGrid.clear();
+		for (int i = 0; i < enemies.size(); i++)
+		{
+			e = enemies.get(i);
+			enemyGrid.add(e, e.getMinX(), e.getMinY(), e.getMaxX(), e.getMaxY());
+		}
+		enemyGrid.build();
+	}
+	
+	// generate a semi-random enemy type
+	private EnemyType nextEnemyType()
+	{
+		int type = random.nextInt(10);
+		if (type < 7) // 0 to 6 returns type1
+		{
+			return (EnemyType.TYPE1);
+		}
+		else // 7 to 9 returns type2
+		{
+			return (EnemyType.TYPE2);
+		}
+	}
+	
+	// update the player's sprite
+	private void updatePlayer(long delta)
+	{
+		Enemy e;
+		int found;
+		
+		player.update(delta);
+		player.updateTransform();
+		if (player.shouldFire() == true)
+		{
+			// the player has fired a projectile
+			player.fireProjectile(projectilePool, this);
+		}
+		
+		// check if the player has collided with any of the enemies near it
+		found = enemyGrid.query(player.getMinX(), player.getMinY(), player.getMaxX(), player.getMaxY());
+		for (int i = 0; i < found; i++)
+		{
+			e = enemyGrid.getResult(i);
+			if ((e.isAlive() == true) && (player.checkCollision(e)))
+			{
+				// the player crashed into an enemy
+				// damage the player and destroy the enemy
+				player.hitBy(e);
+				e.destroy();
+			}
+		}
+	}
+	
+	// check a projectile for collisions, adding the time taken to collisionNanos when profiling
+	private boolean timedCheckCollision(Projectile proj)
+	{
+		long startTime;
+		boolean hit;
+		
+		if (profiler == null)
+		{
+			return (checkCollision(proj));
+		}
+		startTime = System.nanoTime();
+		hit = checkCollision(proj);
+		collisionNanos += System.nanoTime() - startTime;
+		return (hit);
+	}
+	
+	// check if the passed in projectile has collided with an enemy or the player
+	// the projectile's collision mask decides which of the two it is checked against
+	// returns true if a collision occured
+	private boolean checkCollision(Projectile proj)
+	{
+		Enemy e;
+		int hits = 0;
+		int found;
+		
+		if (proj.collidesWithLayer(CgsSprite.LAYER_ENEMY) == false)
+		{
+			return (checkPlayerCollision(proj));
+		}
+		
+		// only the enemies in the grid cells the projectile passed through can have been hit
+		// for a laser that is the cells along its beam, rather than every cell in its bounding box
+		if (proj.getType() == WeaponType.LASER)
+		{
+			if (proj.getNumBeamCells() < 0)
+			{
+				proj.traceBeam(enemyGrid);
+			}
+			found = enemyGrid.queryCells(proj.getBeamCells(), proj.getNumBeamCells());
+		}
+		else
+		{
+			// shots are checked along the whole path they moved this tick, so they can't skip past an enemy
+			found = enemyGrid.query(proj.getSweepMinX(), proj.getSweepMinY(), proj.getSweepMaxX(), proj.getSweepMaxY());
+		}
+		for (int i = 0; i < found; i++)
+		{
+			e = enemyGrid.getResult(i);
+			if ((e.isAlive() == true) && (proj.checkCollision(e) == true))
+			{
+				// enemy was hit by projectile
+				e.hitBy(proj);
+				hits++;
+			}
+		}
+		if (hits > 0)
+		{
+			// return true if an enemy was hit by this projectile
+			return (true);
+		}
+		return (checkPlayerCollision(proj));
+	}
+	
+	// check if the passed in projectile has collided with the player
+	// returns true if a collision occured
+	private boolean checkPlayerCollision(Projectile proj)
+	{
+		if (proj.canCollideWith(player) == false)
+		{
+			// the player's own projectiles can't hit it
+			return (false);
+		}
+		
+		if (proj.checkCollision(player) == true)
+		{
+			// the player was hit by the projectile
+			player.hitBy(proj);
+			return (true);
+		}
+		
+		// no one was hit by this projectile
+		return (false);
+	}
+}
@@ -0,0 +1,144 @@
+package cs4300;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// a fixed size queue of input events, passed from the AWT event thread to the game loop
+// exactly one thread may add events and exactly one thread may take them out,
+// which lets the queue work without any locks: the adding thread only moves the tail,
+// the taking thread only moves the head, and each publishes its position with an
+// ordered write after it is done with the slot
+// events are stored in parallel arrays so adding and taking them doesn't allocate
+public class InputQueue
+{
+	public enum EventType
+	{
+		KEY_PRESSED, KEY_RELEASED, KEY_TYPED, MOUSE_PRESSED, MOUSE_RELEASED, MOUSE_CLICKED, MOUSE_EXITED
+	}
+	
+	// a copy of one event, filled in by poll
+	public static class InputEvent
+	{
+		public EventType type;
+		public int code;		// the key code or mouse button
+		public char keyChar;	// the character typed, for KEY_TYPED
+		public int x, y;		// the mouse position, for mouse events
+		public long time;		// System.nanoTime() when the event was added
+	}
+	
+	public static final int DEF_CAPACITY = 1024;
+	
+	private EventType[] types;
+	private int[] codes;
+	private char[] keyChars;
+	private int[] xs, ys;
+	private long[] times;
+	private int mask;
+	
+	private AtomicLong head;	// the next slot to take from, only moved by the taking thread
+	private AtomicLong tail;	// the next slot to add to, only moved by the adding thread
+	private long cachedHead;	// the adding thread's last look at head, so it rarely has to read it
+	private long dropped;		// events thrown away because the queue was full
+	
+	public long getDropped() { return (dropped); }
+	public int getCapacity() { return (mask+1); }
+	
+	public InputQueue()
+	{
+		this(DEF_CAPACITY);
+	}
+	
+	// create a queue that can hold at least the passed in number of events
+	// the capacity is rounded up to a power of two
+	public InputQueue(int capacity)
+	{
+		int size = 1;
+		
+		while (size < capacity)
+		{
+			size <<= 1;
+		}
+		types = new EventType[size];
+		codes = new int[size];
+		keyChars = new char[size];
+		xs = new int[size];
+		ys = new int[size];
+		times = new long[size];
+		mask = size-1;
+		
+		head = new AtomicLong(0);
+		tail = new AtomicLong(0);
+		cachedHead = 0;
+		dropped = 0;
+	}
+	
+	// add an event to the queue, stamped with the current time
+	// only call this from the adding thread
+	// returns false and drops the event if the queue is full,
+	// since the event thread should never wait on the game loop
+	public boolean offer(EventType type, int code, char keyChar, int x, int y)
+	{
+		long t = tail.get();
+		int slot;
+		
+		if (t - cachedHead > mask)
+		{
+			cachedHead = head.get();
+			if (t - cachedHead > mask)
+			{
+				dropped++;
+				return (false);
+			}
+		}
+		
+		slot = (int)(t & mask);
+		types[slot] = type;
+		codes[slot] = code;
+		keyChars[slot] = keyChar;
+		xs[slot] = x;
+		ys[slot] = y;
+		times[slot] = System.nanoTime();
+		
+		// the slot has to be filled in before the taking thread can see it
+		tail.lazySet(t+1);
+		return (true);
+	}
+	
+	// copy the oldest event into dest and remove it from the queue
+	// only call this from the taking thread
+	// returns false if the queue is empty
+	public boolean poll(InputEvent dest)
+	{
+		long h = head.get();
+		int slot;
+		
+		if (h == tail.get())
+		{
+			return (false);
+		}
+		
+		slot = (int)(h & mask);
+		dest.type = types[slot];
+		dest.code = codes[slot];
+		dest.keyChar = keyChars[slot];
+		dest.x = xs[slot];
+		dest.y = ys[slot];
+		dest.time = times[slot];
+		
+		// the slot has to be read before the adding thread can reuse it
+		head.lazySet(h+1);
+		return (true);
+	}
+	
+	// throw away every event that is waiting
+	// only call this from the taking thread
+	public void clear()
+	{
+		head.lazySet(tail.get());
+	}
+	
+	// whether there are no events waiting
+	public boolean isEmpty()
+	{
+		return (head.get() == tail.get());
+	}
+}
@@ -0,0 +1,126 @@
+package cs4300;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// writes the player's input for every tick of a game to a file, so the game can be replayed
+// the file starts with the world's seed, play area, player start and the tick length, which
+// together with the input are everything needed to play the game out again exactly the same way
+// the file is written through a memory mapped buffer, so recording a tick is only a few
+// stores into memory and the operating system writes the pages out in the background
+//
+// file layout (big endian):
+//   int magic, int version, long seed, int tickMillis, int playX, int playY, int playWidth, int playHeight,
+//   double startX, double startY, long tickCount
+//   then RECORD_SIZE bytes per tick: byte flags, byte weapon (-1 for none), short mouseX, short mouseY
+public class InputRecorder
+{
+	public static final int MAGIC = 0x43475352;		// "CGSR"
+	public static final int VERSION = 2;
+	public static final int HEADER_SIZE = 60;
+	public static final int RECORD_SIZE = 6;
+	public static final int TICK_COUNT_POS = 52;	// where in the header the number of ticks is kept
+	
+	// the bits of a record's flags byte
+	public static final int FLAG_UP = 1, FLAG_DOWN = 2, FLAG_LEFT = 4, FLAG_RIGHT = 8;
+	public static final int FLAG_FIRE = 16, FLAG_MOUSE_DOWN = 32, FLAG_MOUSE_PRESSED = 64, FLAG_HAS_MOUSE = 128;
+	
+	private static final int MAP_CHUNK = 1 << 20;	// the file is mapped this many bytes at a time
+	
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private long tickCount;
+	
+	public long getTickCount() { return (tickCount); }
+	
+	// create a new recording of the passed in world, replacing the file if it exists
+	// the world should be freshly reset, the recording starts from its seed and start position
+	public InputRecorder(String path, GameWorld world, long tickMillis) throws IOException
+	{
+		file = new RandomAccessFile(path, "rw");
+		file.setLength(0);
+		channel = file.getChannel();
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, MAP_CHUNK);
+		tickCount = 0;
+		
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putLong(world.getSeed());
+		buffer.putInt((int)tickMillis);
+		buffer.putInt(world.getPlayArea().x);
+		buffer.putInt(world.getPlayArea().y);
+		buffer.putInt(world.getPlayArea().width);
+		buffer.putInt(world.getPlayArea().height);
+		buffer.putDouble(world.getStartX());
+		buffer.putDouble(world.getStartY());
+		buffer.putLong(0);
+	}
+	
+	// add one tick's input to the recording
+	public void record(PlayerInput input)
+	{
+		int flags = 0;
+		
+		if (buffer.remaining() < RECORD_SIZE)
+		{
+			grow();
+			if (buffer.remaining() < RECORD_SIZE)
+			{
+				// the file couldn't be grown, the rest of the game isn't recorded
+				return;
+			}
+		}
+		
+		flags |= (input.up == true) ? FLAG_UP : 0;
+		flags |= (input.down == true) ? FLAG_DOWN : 0;
+		flags |= (input.left == true) ? FLAG_LEFT : 0;
+		flags |= (input.right == true) ? FLAG_RIGHT : 0;
+		flags |= (input.fire == true) ? FLAG_FIRE : 0;
+		flags |= (input.mouseDown == true) ? FLAG_MOUSE_DOWN : 0;
+		flags |= (input.mousePressed == true) ? FLAG_MOUSE_PRESSED : 0;
+		flags |= (input.hasMouse == true) ? FLAG_HAS_MOUSE : 0;
+		
+		buffer.put((byte)flags);
+		buffer.put((byte)((input.weapon == null) ? -1 : input.weapon.ordinal()));
+		buffer.putShort((short)input.mouseX);
+		buffer.putShort((short)input.mouseY);
+		tickCount++;
+	}
+	
+	// finish the recording
+	// the file keeps the unused end of its last mapped chunk, replays only read tickCount records
+	public void close()
+	{
+		try
+		{
+			buffer.putLong(TICK_COUNT_POS, tickCount);
+			buffer.force();
+			channel.close();
+			file.close();
+		}
+		catch (IOException ex)
+		{
+			ex.printStackTrace();
+		}
+	}
+	
+	// map a bigger piece of the file once the current one is full
+	private void grow()
+	{
+		int pos = buffer.position();
+		
+		try
+		{
+			buffer.force();
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, buffer.capacity() + MAP_CHUNK);
+			buffer.position(pos);
+		}
+		catch (IOException ex)
+		{
+			ex.printStackTrace();
+		}
+	}
+}
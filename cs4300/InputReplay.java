@@ -0,0 +1,112 @@
+package cs4300;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import cs4300.CgsSprite.WeaponType;
+
+// an input source that plays back a recording made by InputRecorder
+// the whole recording is memory mapped, so reading a tick's input doesn't touch the disk
+// a world created with getPlayArea(), getStartX(), getStartY() and getSeed() and ticked every
+// getTickMillis() plays out exactly as the recorded game did
+// once the recording runs out, every tick has no input
+public class InputReplay implements InputSource
+{
+	private static final WeaponType[] WEAPONS = WeaponType.values();
+	
+	private MappedByteBuffer buffer;
+	private long seed;
+	private long tickMillis;
+	private Rectangle playArea;
+	private double startX, startY;
+	private long tickCount;
+	private long tick;
+	
+	public long getSeed() { return (seed); }
+	public long getTickMillis() { return (tickMillis); }
+	public Rectangle getPlayArea() { return (new Rectangle(playArea)); }
+	public double getStartX() { return (startX); }
+	public double getStartY() { return (startY); }
+	public long getTickCount() { return (tickCount); }
+	public long getTick() { return (tick); }
+	
+	// open a recording
+	public InputReplay(String path) throws IOException
+	{
+		RandomAccessFile file = new RandomAccessFile(path, "r");
+		FileChannel channel = file.getChannel();
+		
+		try
+		{
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		finally
+		{
+			// the mapping stays valid after the file is closed
+			channel.close();
+			file.close();
+		}
+		
+		if ((buffer.remaining() < InputRecorder.HEADER_SIZE) || (buffer.getInt() != InputRecorder.MAGIC))
+		{
+			throw new IOException(path + " is not an input recording");
+		}
+		if (buffer.getInt() != InputRecorder.VERSION)
+		{
+			throw new IOException(path + " was recorded by a different version of the game");
+		}
+		seed = buffer.getLong();
+		tickMillis = buffer.getInt();
+		playArea = new Rectangle(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+		startX = buffer.getDouble();
+		startY = buffer.getDouble();
+		tickCount = buffer.getLong();
+		
+		// a recording that wasn't closed properly has no tick count, play whatever is there
+		if ((tickCount <= 0) || (tickCount > buffer.remaining()/InputRecorder.RECORD_SIZE))
+		{
+			tickCount = buffer.remaining()/InputRecorder.RECORD_SIZE;
+		}
+		tick = 0;
+	}
+	
+	// whether every recorded tick has been played
+	public boolean isFinished()
+	{
+		return (tick >= tickCount);
+	}
+	
+	@Override
+	public void nextInput(PlayerInput input)
+	{
+		int flags, weapon;
+		
+		input.clear();
+		if (isFinished() == true)
+		{
+			return;
+		}
+		
+		flags = buffer.get();
+		weapon = buffer.get();
+		input.mouseX = buffer.getShort();
+		input.mouseY = buffer.getShort();
+		tick++;
+		
+		input.up = (flags & InputRecorder.FLAG_UP) != 0;
+		input.down = (flags & InputRecorder.FLAG_DOWN) != 0;
+		input.left = (flags & InputRecorder.FLAG_LEFT) != 0;
+		input.right = (flags & InputRecorder.FLAG_RIGHT) != 0;
+		input.fire = (flags & InputRecorder.FLAG_FIRE) != 0;
+		input.mouseDown = (flags & InputRecorder.FLAG_MOUSE_DOWN) != 0;
+		input.mousePressed = (flags & InputRecorder.FLAG_MOUSE_PRESSED) != 0;
+		input.hasMouse = (flags & InputRecorder.FLAG_HAS_MOUSE) != 0;
+		if ((weapon >= 0) && (weapon < WEAPONS.length))
+		{
+			input.weapon = WEAPONS[weapon];
+		}
+	}
+}
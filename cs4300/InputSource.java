@@ -0,0 +1,9 @@
+package cs4300;
+
+// something that can supply the player's input to the game world one tick at a time
+// the game screen reads it from the keyboard and mouse, but it can also be scripted
+public interface InputSource
+{
+	// fill in the player's input for the next tick
+	public void nextInput(PlayerInput input);
+}
@@ -0,0 +1,120 @@
+package cs4300;
+
+// a histogram of durations in nanoseconds with a fixed number of buckets
+// each power of two range is split into SUB_COUNT equal buckets, so a reported
+// percentile is never off by more than 1/SUB_COUNT of its value
+// recording a value only increments a counter, nothing is allocated after creation
+public class LatencyHistogram
+{
+	private static final int SUB_BITS = 4;
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+	private static final int NUM_BUCKETS = (64-SUB_BITS)*SUB_COUNT;
+	
+	private long[] counts;
+	private long count;
+	private long total;
+	private long max;
+	
+	public long getCount() { return (count); }
+	public long getMax() { return (max); }
+	
+	public LatencyHistogram()
+	{
+		counts = new long[NUM_BUCKETS];
+		reset();
+	}
+	
+	// add a duration to the histogram
+	public void record(long nanos)
+	{
+		if (nanos < 0)
+		{
+			nanos = 0;
+		}
+		counts[bucketOf(nanos)]++;
+		count++;
+		total += nanos;
+		if (nanos > max)
+		{
+			max = nanos;
+		}
+	}
+	
+	// the average of the recorded durations
+	public long getMean()
+	{
+		if (count == 0)
+		{
+			return (0);
+		}
+		return (total/count);
+	}
+	
+	// the duration that the passed in percent of the recorded durations are at or below
+	// the top of the bucket is returned, so the value is rounded up rather than down
+	public long getPercentile(double percent)
+	{
+		long target, seen;
+		
+		if (count == 0)
+		{
+			return (0);
+		}
+		
+		target = (long)Math.ceil(count*percent/100);
+		if (target < 1)
+		{
+			target = 1;
+		}
+		seen = 0;
+		for (int i = 0; i < NUM_BUCKETS; i++)
+		{
+			seen += counts[i];
+			if (seen >= target)
+			{
+				return (Math.min(bucketTop(i), max));
+			}
+		}
+		return (max);
+	}
+	
+	// forget all of the recorded durations
+	public void reset()
+	{
+		for (int i = 0; i < NUM_BUCKETS; i++)
+		{
+			counts[i] = 0;
+		}
+		count = 0;
+		total = 0;
+		max = 0;
+	}
+	
+	// find the bucket a duration falls in
+	// the smallest values each get their own bucket
+	private static int bucketOf(long nanos)
+	{
+		int shift;
+		
+		if (nanos < SUB_COUNT*2)
+		{
+			return ((int)nanos);
+		}
+		shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BITS;
+		return ((shift+1)*SUB_COUNT + (int)((nanos >> shift) - SUB_COUNT));
+	}
+	
+	// the largest duration that falls in a bucket
+	private static long bucketTop(int bucket)
+	{
+		int shift, sub;
+		
+		if (bucket < SUB_COUNT*2)
+		{
+			return (bucket);
+		}
+		shift = bucket/SUB_COUNT - 1;
+		sub = bucket%SUB_COUNT;
+		return (((long)(sub+SUB_COUNT+1) << shift) - 1);
+	}
+}
@@ -1,16 +1,25 @@
 package cs4300;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
-import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Transparency;
 import java.awt.font.TextLayout;
 import java.awt.geom.Rectangle2D;
 import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
 import java.util.LinkedList;
 
 import cs4300.MenuStyle.LayoutType;
 
+// a menu is drawn into a layer image, and the layer is copied to the screen each frame
+// when an item's hovered, selected or text state changes only the part of the layer around that
+// item is drawn again, so a menu that sits on screen the whole game, like the in-game menu bar,
+// costs one image copy a frame and a little more when the score goes up
+// the number of layer copies and redraws are counted across all menus for the profiler overlay,
+// menus are only drawn by the thread that draws the screen so the counts aren't locked
 public class Menu
 {
 	public enum MenuAction
@@ -23,9 +32,18 @@ public class Menu
 		GM_RAPID, GM_SPREAD, GM_LASER, GM_PAUSE
 	}
 	
+	private static final int LAYER_MARGIN = 4;	// extra pixels around the layer for the outline's stroke
+	private static final int TEXT_MARGIN = 2;	// extra pixels around text for its antialiased edges
+	
+	private static long layerDraws, layerRedraws;
+	
 	private RoundRectangle2D.Float outline;
 	private MenuStyle style;
 	private LinkedList<MenuItem> items;
+	private BufferedImage layer;	// the menu as it was last drawn
+	private BufferedImage base;		// the menu's background and outline with no items on it
+	private int layerX, layerY;		// where the layer goes on the screen
+	private boolean dirty;			// whether the menu's layout changed since the layer was drawn
 	
 	public float getXPos() { return (outline.x); }
 	public float getYPos() { return (outline.y); }
@@ -40,6 +58,8 @@ public class Menu
 		outline = new RoundRectangle2D.Float(0, 0, 0, 0, width/4, height/4);
 		outline.setFrameFromCenter(centerX, centerY, centerX+width/2, centerY+height/2);
 		items = new LinkedList<MenuItem>();
+		layer = null;
+		dirty = true;
 		
 		// check if this menu was given a title
 		if (title.compareTo("") != 0)
@@ -51,19 +71,132 @@ public class Menu
 	}
 	
 	// draw the menu on the screen
+	// the changed parts of the layer are drawn again first if anything on the menu has changed
 	public void draw(Graphics2D g2d)
 	{
-		g2d.setColor(style.colors.fillColor);
-		g2d.fill(outline);
-		g2d.setColor(style.colors.trimColor);
-		g2d.setStroke(style.stroke);
-		g2d.draw(outline);
+		if (hasChanged() == true)
+		{
+			drawLayer(g2d);
+			layerRedraws++;
+		}
+		g2d.drawImage(layer, layerX, layerY, null);
+		layerDraws++;
+	}
+	
+	// whether the menu looks different than it did when it was last drawn
+	public boolean hasChanged()
+	{
+		if ((layer == null) || (dirty == true))
+		{
+			return (true);
+		}
+		for (MenuItem item : items)
+		{
+			if (item.hasChanged() == true)
+			{
+				return (true);
+			}
+		}
+		return (false);
+	}
+	
+	// a line describing how often menus were drawn again, for the profiler overlay
+	public static String getSummary()
+	{
+		return (String.format("menu layers: %d drawn, %d redrawn", layerDraws, layerRedraws));
+	}
+	
+	// draw the menu and its items into the layer
+	// the whole layer is drawn when it is new or items were added, otherwise only around the changed items
+	// the layer uses the same rendering hints as the screen so the text is laid out the same way
+	private void drawLayer(Graphics2D g2d)
+	{
+		Graphics2D layerG2d;
+		Rectangle2D area, bounds;
+		boolean whole = (layer == null) || (dirty == true);
+		
+		if (layer == null)
+		{
+			layerX = (int)Math.floor(outline.x) - LAYER_MARGIN;
+			layerY = (int)Math.floor(outline.y) - LAYER_MARGIN;
+			layer = g2d.getDeviceConfiguration().createCompatibleImage(
+						(int)Math.ceil(outline.x + outline.width) + LAYER_MARGIN - layerX,
+						(int)Math.ceil(outline.y + outline.height) + LAYER_MARGIN - layerY,
+						Transparency.TRANSLUCENT);
+			drawBase(g2d);
+		}
+		layerG2d = layer.createGraphics();
+		layerG2d.setRenderingHints(g2d.getRenderingHints());
+		layerG2d.translate(-layerX, -layerY);
+		
+		if (whole == true)
+		{
+			for (MenuItem item : items)
+			{
+				item.setDrawnBounds(item.getDrawBounds(layerG2d, style));
+			}
+			repaint(layerG2d, new Rectangle(layerX, layerY, layer.getWidth(), layer.getHeight()));
+		}
+		else
+		{
+			for (MenuItem item : items)
+			{
+				if (item.hasChanged() == true)
+				{
+					// cover where the item was as well as where it is now, in case its text got shorter
+					bounds = item.getDrawBounds(layerG2d, style);
+					area = item.getDrawnBounds().createUnion(bounds);
+					item.setDrawnBounds(bounds);
+					repaint(layerG2d, area.getBounds());
+				}
+			}
+		}
+		
+		for (MenuItem item : items)
+		{
+			item.clearChanged();
+		}
+		layerG2d.dispose();
+		dirty = false;
+	}
+	
+	// draw the menu's background and outline into the base image
+	// filling the antialiased outline is slow even when clipped, so it is only done once
+	// and the base is copied in under the items that are drawn again
+	private void drawBase(Graphics2D g2d)
+	{
+		Graphics2D baseG2d;
+		
+		base = g2d.getDeviceConfiguration().createCompatibleImage(layer.getWidth(), layer.getHeight(),
+																	Transparency.TRANSLUCENT);
+		baseG2d = base.createGraphics();
+		baseG2d.setRenderingHints(g2d.getRenderingHints());
+		baseG2d.translate(-layerX, -layerY);
+		baseG2d.setColor(style.colors.fillColor);
+		baseG2d.fill(outline);
+		baseG2d.setColor(style.colors.trimColor);
+		baseG2d.setStroke(style.stroke);
+		baseG2d.draw(outline);
+		baseG2d.dispose();
+	}
+	
+	// copy an area of the base into the layer, then draw every item that reaches into the area again
+	// drawing is clipped to the area, so the pixels come out the same as drawing the whole layer
+	private void repaint(Graphics2D layerG2d, Rectangle area)
+	{
+		layerG2d.setClip(area);
+		layerG2d.setComposite(AlphaComposite.Src);
+		layerG2d.drawImage(base, layerX, layerY, null);
+		layerG2d.setComposite(AlphaComposite.SrcOver);
 		
-		// draw each item contained in the menu
 		for (MenuItem item : items)
 		{
-			item.draw(g2d, style);
+			if (item.getDrawnBounds().intersects(area) == true)
+			{
+				item.draw(layerG2d, style);
+			}
 		}
+		layerG2d.setClip(null);
 	}
 	
 	// add an item to the menu
@@ -72,6 +205,7 @@ public class Menu
 		float itemX, itemY, itemYInc, itemXInc;
 		float itemWidth, itemHeight;
 		items.add(item);
+		dirty = true;
 		
 		// item placement depends on the layout of the menu
 		if (style.layout == LayoutType.LAYOUT_HORIZONTAL)
@@ -164,23 +298,32 @@ public class Menu
 	}
 	
 	// draw a string to the screen, centered around the passed in coordinates
+	// the layout comes from the shared cache, so this is for strings that are drawn over and over
 	public static void drawText(Graphics2D g2d, String text, int size, Color color, float centerX, float centerY)
 	{
-		TextLayout layout;
-		Rectangle2D textBounds;
-		Font textFont;
-		Color textColor;
-		
-		// default font
-		textFont = new Font("Courier", Font.BOLD, size);
+		// the layout is only made the first time the string is drawn at this size
+		drawLayout(g2d, RenderCache.getTextLayout(text, size, g2d.getFontRenderContext()), color, centerX, centerY);
+	}
+	
+	// draw laid out text to the screen, centered around the passed in coordinates
+	public static void drawLayout(Graphics2D g2d, TextLayout layout, Color color, float centerX, float centerY)
+	{
+		Rectangle2D textBounds = layout.getBounds();
 		
-		textColor = color;
-		layout = new TextLayout(text, textFont, g2d.getFontRenderContext());
-		textBounds = layout.getBounds();
-		g2d.setColor(textColor);
+		g2d.setColor(color);
 		layout.draw(g2d, (float)(centerX-(textBounds.getWidth()/2)), 
 					(float)(centerY+(layout.getAscent()/3)));
 	}
+	
+	// the area drawLayout covers when drawing the layout centered around the passed in coordinates
+	public static Rectangle2D getTextBounds(TextLayout layout, float centerX, float centerY)
+	{
+		Rectangle2D textBounds = layout.getBounds();
+		
+		return (new Rectangle2D.Double(centerX - textBounds.getWidth()/2 + textBounds.getX() - TEXT_MARGIN,
+									   centerY + layout.getAscent()/3 + textBounds.getY() - TEXT_MARGIN,
+									   textBounds.getWidth() + TEXT_MARGIN*2, textBounds.getHeight() + TEXT_MARGIN*2));
+	}
 }
 
 
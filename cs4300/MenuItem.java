@@ -2,6 +2,7 @@ package cs4300;
 
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.geom.Rectangle2D;
 import java.awt.geom.RoundRectangle2D;
 
 import cs4300.Menu.MenuAction;
@@ -15,13 +16,38 @@ public abstract class MenuItem
 	
 	private boolean hovered;
 	private boolean selected;
+	private boolean changed;	// whether the item looks different since its menu was last drawn
+	private Rectangle2D drawnBounds;	// the part of its menu's layer the item covered when it was last drawn
 	
 	public MenuAction getAction() { return (action); }
 	public float getWidth() { return (width); }
 	public float getHeight() { return (height); }
 	
-	public void setHovered(boolean hovered)	{ this.hovered = hovered; }
-	public void setSelected(boolean selected) {	this.selected = selected; }
+	public boolean hasChanged() { return (changed); }
+	public void clearChanged() { changed = false; }
+	public Rectangle2D getDrawnBounds() { return (drawnBounds); }
+	public void setDrawnBounds(Rectangle2D bounds) { drawnBounds = bounds; }
+	
+	// the item only needs to be drawn again if its state actually changes
+	public void setHovered(boolean hovered)
+	{
+		if (this.hovered != hovered)
+		{
+			this.hovered = hovered;
+			changed = true;
+		}
+	}
+	public void setSelected(boolean selected)
+	{
+		if (this.selected != selected)
+		{
+			this.selected = selected;
+			changed = true;
+		}
+	}
+	
+	// mark the item as needing to be drawn again
+	protected void markChanged() { changed = true; }
 	
 	public MenuItem(float width, float height)
 	{
@@ -33,6 +59,17 @@ public abstract class MenuItem
 		this.height = height;
 		hovered = false;
 		selected = false;
+		changed = true;
+		drawnBounds = null;
+	}
+	
+	// the area the item covers when it is drawn, including the stroke around its outline
+	// g2d is what the item would be drawn with, for items that have to lay out text
+	protected Rectangle2D getDrawBounds(Graphics2D g2d, MenuStyle style)
+	{
+		float pad = style.stroke.getLineWidth()/2 + 1;
+		
+		return (new Rectangle2D.Float(outline.x - pad, outline.y - pad, outline.width + pad*2, outline.height + pad*2));
 	}
 	
 	// draw the item in its current state
@@ -0,0 +1,212 @@
+package cs4300;
+
+// exact collision tests between two sprite shapes, once their bounds are known to overlap
+// each shape is made of convex pieces (see SpriteShape), and two convex pieces are apart
+// exactly when there is a line between them, which has to run along one of their edges
+// (the separating axis theorem), so each pair of pieces is checked by projecting both onto
+// the normal of every edge and looking for a gap
+// lines and points have no area, so a line is also projected onto its own direction, which
+// finds the gap between lines end to end on the same line or a point past the end of a line,
+// and a point is only tested against the other piece's axes
+// when the contact isn't wanted, an edge of a piece with area is checked by looking for a point
+// of the other piece on the same side of it as the piece's own center, skipping the edge at once
+// if the other piece's center is on that side, so only a gap has to look at every point
+// this catches outlines that cross without either having a point inside the other,
+// and only reads the sprites' arrays of piece points, so nothing is allocated
+public class Narrowphase
+{
+	// where two shapes touch, filled in by overlaps when asked for
+	public static class Contact
+	{
+		public double normalX, normalY;	// the unit direction to push the second shape to separate them
+		public double depth;			// how far the second shape has to be pushed along the normal
+	}
+	
+	// whether the outlines of two sprites overlap
+	// both sprites' transforms must be up to date
+	public static boolean overlaps(CgsSprite a, CgsSprite b)
+	{
+		return (overlaps(a, b, null));
+	}
+	
+	// whether the outlines of two sprites overlap
+	// if they do and contact isn't null, it is filled in from the first pair of pieces found touching
+	public static boolean overlaps(CgsSprite a, CgsSprite b, Contact contact)
+	{
+		int[] aStart = a.shape.getPieceStart();
+		int[] bStart = b.shape.getPieceStart();
+		float[] aVerts = a.pieceVerts, bVerts = b.pieceVerts;
+		float[] aBox = a.pieceBounds, bBox = b.pieceBounds;
+		
+		for (int i = 0; i < a.shape.getNumPieces(); i++)
+		{
+			// most pairs of pieces are ruled out by their bounding boxes
+			if ((aBox[i*6] > b.maxX) || (aBox[i*6+2] < b.minX) || (aBox[i*6+1] > b.maxY) || (aBox[i*6+3] < b.minY))
+			{
+				continue;
+			}
+			for (int j = 0; j < b.shape.getNumPieces(); j++)
+			{
+				if ((aBox[i*6] > bBox[j*6+2]) || (aBox[i*6+2] < bBox[j*6]) ||
+					(aBox[i*6+1] > bBox[j*6+3]) || (aBox[i*6+3] < bBox[j*6+1]))
+				{
+					continue;
+				}
+				if (piecesOverlap(aVerts, aStart[i], aStart[i+1], aBox[i*6+4], aBox[i*6+5],
+								  bVerts, bStart[j], bStart[j+1], bBox[j*6+4], bBox[j*6+5], contact) == true)
+				{
+					return (true);
+				}
+			}
+		}
+		return (false);
+	}
+	
+	// whether two convex pieces overlap
+	// a piece is made of points start to end-1 of its array, and its center is the average of them
+	private static boolean piecesOverlap(float[] aVerts, int aStart, int aEnd,
+										 float aCenterX, float aCenterY,
+										 float[] bVerts, int bStart, int bEnd,
+										 float bCenterX, float bCenterY, Contact contact)
+	{
+		if ((aEnd - aStart < 2) && (bEnd - bStart < 2))
+		{
+			// two points can't overlap
+			return (false);
+		}
+		if (contact != null)
+		{
+			contact.depth = Double.POSITIVE_INFINITY;
+		}
+		if ((separatedOnEdges(aVerts, aStart, aEnd, aCenterX, aCenterY,
+							  bVerts, bStart, bEnd, bCenterX, bCenterY, contact) == true) ||
+			(separatedOnEdges(bVerts, bStart, bEnd, bCenterX, bCenterY,
+							  aVerts, aStart, aEnd, aCenterX, aCenterY, contact) == true))
+		{
+			return (false);
+		}
+		
+		if (contact != null)
+		{
+			// point the normal from the first piece towards the second
+			if ((bCenterX - aCenterX)*contact.normalX + (bCenterY - aCenterY)*contact.normalY < 0)
+			{
+				contact.normalX = -contact.normalX;
+				contact.normalY = -contact.normalY;
+			}
+		}
+		return (true);
+	}
+	
+	// check the normal of each edge of piece e for a gap between it and piece o
+	// a line is also checked along its direction
+	// returns true as soon as a gap is found
+	// if contact isn't null the axis with the least overlap is kept in it
+	private static boolean separatedOnEdges(float[] eVerts, int eStart, int eEnd,
+											float eCenterX, float eCenterY,
+											float[] oVerts, int oStart, int oEnd,
+											float oCenterX, float oCenterY, Contact contact)
+	{
+		int n = eEnd - eStart;
+		int p, q;
+		float edgeX, edgeY;
+		
+		// a line has one edge, a point has none
+		for (int e = 0; e < ((n > 2) ? n : n-1); e++)
+		{
+			p = eStart + e;
+			q = eStart + (e+1) % n;
+			edgeX = eVerts[q*2] - eVerts[p*2];
+			edgeY = eVerts[q*2+1] - eVerts[p*2+1];
+			if ((edgeX == 0) && (edgeY == 0))
+			{
+				continue;
+			}
+			if ((contact == null) && (n > 2))
+			{
+				if (beyondEdge(eVerts[p*2], eVerts[p*2+1], edgeX, edgeY, eCenterX, eCenterY, oCenterX, oCenterY,
+							   oVerts, oStart, oEnd) == true)
+				{
+					return (true);
+				}
+				continue;
+			}
+			if (separatedOnAxis(-edgeY, edgeX, eVerts, eStart, eEnd, oVerts, oStart, oEnd, contact) == true)
+			{
+				return (true);
+			}
+			if ((n == 2) &&
+				(separatedOnAxis(edgeX, edgeY, eVerts, eStart, eEnd, oVerts, oStart, oEnd, contact) == true))
+			{
+				return (true);
+			}
+		}
+		return (false);
+	}
+	
+	// whether every point of piece o is strictly on the other side of the edge
+	// starting at x, y from the center of the edge's own piece
+	// the edge's piece is convex, so nothing of it is past the edge either
+	private static boolean beyondEdge(float x, float y, float edgeX, float edgeY,
+									  float centerX, float centerY, float oCenterX, float oCenterY,
+									  float[] oVerts, int oStart, int oEnd)
+	{
+		float side = edgeX*(centerY - y) - edgeY*(centerX - x);
+		
+		// all of o past the edge puts its center there too
+		if (side*(edgeX*(oCenterY - y) - edgeY*(oCenterX - x)) >= 0)
+		{
+			return (false);
+		}
+		for (int i = oStart; i < oEnd; i++)
+		{
+			if (side*(edgeX*(oVerts[i*2+1] - y) - edgeY*(oVerts[i*2] - x)) >= 0)
+			{
+				return (false);
+			}
+		}
+		return (true);
+	}
+	
+	// project pieces a and b onto the axis and check for a gap between them
+	// if contact isn't null and there is no gap, the axis is kept in it if it has the least overlap so far
+	private static boolean separatedOnAxis(double axisX, double axisY,
+										   float[] aVerts, int aStart, int aEnd,
+										   float[] bVerts, int bStart, int bEnd, Contact contact)
+	{
+		double aMin, aMax, bMin, bMax, proj, overlap, len;
+		
+		aMin = bMin = Double.POSITIVE_INFINITY;
+		aMax = bMax = Double.NEGATIVE_INFINITY;
+		for (int i = aStart; i < aEnd; i++)
+		{
+			proj = axisX*aVerts[i*2] + axisY*aVerts[i*2+1];
+			aMin = Math.min(aMin, proj);
+			aMax = Math.max(aMax, proj);
+		}
+		for (int i = bStart; i < bEnd; i++)
+		{
+			proj = axisX*bVerts[i*2] + axisY*bVerts[i*2+1];
+			bMin = Math.min(bMin, proj);
+			bMax = Math.max(bMax, proj);
+		}
+		if ((aMax < bMin) || (bMax < aMin))
+		{
+			return (true);
+		}
+		
+		if (contact != null)
+		{
+			// the axis isn't a unit vector, so scale the overlap before comparing
+			len = Math.sqrt(axisX*axisX + axisY*axisY);
+			overlap = Math.min(aMax - bMin, bMax - aMin)/len;
+			if (overlap < contact.depth)
+			{
+				contact.depth = overlap;
+				contact.normalX = axisX/len;
+				contact.normalY = axisY/len;
+			}
+		}
+		return (false);
+	}
+}
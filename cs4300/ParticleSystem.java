@@ -0,0 +1,202 @@
+package cs4300;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.GeneralPath;
+import java.util.SplittableRandom;
+
+// the engine flames and the explosions enemies leave behind when they are destroyed
+// explosion particles are kept in parallel arrays that are allocated once, and a dead
+// particle is replaced by the last live one, so adding and updating particles never allocates
+// engine flames used to be five new random curves for every sprite every frame, now a set of
+// flames is made up front and each sprite cycles through them
+// everything shares one budget: the live particles plus the flame curves drawn in a frame
+// shouldn't go over it, so with a lot on screen explosions get smaller and engines draw fewer curves
+public class ParticleSystem
+{
+	public static final int DEF_BUDGET = 2048;
+	public static final int FLAME_VARIANTS = 16;
+	public static final int FLAME_CURVES = 5;
+	public static final float FLAME_WIDTH = 6;
+	private static final long FLAME_SEED = 4300;	// the flames look the same every game
+	private static final int EXPLOSION_PARTICLES = 48;
+	private static final int EXPLOSION_LIFE = 600;	// how many milliseconds the longest lived particles last
+	private static final float EXPLOSION_SPEED = 0.2f;
+	private static final int PARTICLE_SIZE = 4;
+	
+	// the precomputed flames, each made of FLAME_CURVES curves and their colors
+	private static final SpriteShape[][] flameCurves = new SpriteShape[FLAME_VARIANTS][FLAME_CURVES];
+	private static final int[][] flameColors = new int[FLAME_VARIANTS][FLAME_CURVES];
+	
+	private float[] xPos, yPos;
+	private float[] xVel, yVel;
+	private int[] life, maxLife;		// milliseconds left and the milliseconds the particle started with
+	private int count;
+	private int budget;
+	private int frameUsed;				// particles and flame curves drawn so far this frame
+	private int lastFlameCurves;		// flame curves drawn last frame
+	private long lastDelta;				// the length of the last update, for drawing between ticks
+	private long dropped;				// particles that weren't added because of the budget
+	
+	public int getCount() { return (count); }
+	public int getBudget() { return (budget); }
+	public long getDropped() { return (dropped); }
+	
+	// create a particle system that keeps the live particles and flame curves under budget
+	public ParticleSystem(int budget)
+	{
+		this.budget = Math.max(budget, 0);
+		xPos = new float[this.budget];
+		yPos = new float[this.budget];
+		xVel = new float[this.budget];
+		yVel = new float[this.budget];
+		life = new int[this.budget];
+		maxLife = new int[this.budget];
+		count = 0;
+		frameUsed = 0;
+		lastFlameCurves = 0;
+		lastDelta = 0;
+		dropped = 0;
+	}
+	
+	// the flames are the same sort of random curves the engines always drew,
+	// starting at the engine and trailing back from it
+	static
+	{
+		SplittableRandom r = new SplittableRandom(FLAME_SEED);
+		GeneralPath curve;
+		double curveX, curveY;
+		
+		for (int v = 0; v < FLAME_VARIANTS; v++)
+		{
+			for (int i = 0; i < FLAME_CURVES; i++)
+			{
+				curve = new GeneralPath();
+				curveX = 0;
+				curveY = 0;
+				curve.moveTo(curveX+=r.nextDouble()*5-2.5, curveY);
+				curve.curveTo(curveX+=r.nextDouble()*5-2.5, curveY+=r.nextDouble()+5,
+							  curveX+=r.nextDouble()*5-2.5, curveY+=r.nextDouble()+5,
+							  curveX+=r.nextDouble()*5-2.5, curveY+=r.nextDouble()+5);
+				flameCurves[v][i] = new SpriteShape(curve);
+				flameColors[v][i] = r.nextInt(RenderCache.NUM_FLAME_COLORS);
+			}
+		}
+	}
+	
+	// draw some of the curves of one of the flames
+	// at moves the flame from the engine's position into place,
+	// coordBuf must hold 8 floats and dest is where the curves are moved to before being drawn
+	public static void drawFlame(Graphics2D g2d, int variant, int curves, AffineTransform at,
+								 float[] coordBuf, GeneralPath dest)
+	{
+		g2d.setStroke(RenderCache.getStroke(FLAME_WIDTH));
+		for (int i = 0; i < curves; i++)
+		{
+			flameCurves[variant][i].transformInto(at, coordBuf, dest);
+			g2d.setColor(RenderCache.getFlameColor(flameColors[variant][i]));
+			g2d.draw(dest);
+		}
+	}
+	
+	// get how many curves a sprite's flame should draw this frame
+	// at least one is always drawn so that no engine goes out
+	public int takeFlameCurves()
+	{
+		int curves = Math.max(1, Math.min(budget - frameUsed, FLAME_CURVES));
+		
+		frameUsed += curves;
+		lastFlameCurves += curves;
+		return (curves);
+	}
+	
+	// add an explosion centered on the passed in point
+	// the particles fly out in random directions, and fewer are added the less budget is left
+	public void explode(double x, double y, SplittableRandom r)
+	{
+		int free = budget - count - lastFlameCurves;
+		int n = EXPLOSION_PARTICLES;
+		double angle, speed;
+		
+		if (free < budget/2)
+		{
+			// over half the budget is in use, scale the explosion down with what is left
+			n = n*Math.max(free, 0)/Math.max(budget/2, 1);
+		}
+		n = Math.min(n, budget - count);
+		dropped += EXPLOSION_PARTICLES - n;
+		
+		for (int i = 0; i < n; i++)
+		{
+			angle = r.nextDouble()*2*Math.PI;
+			speed = r.nextDouble()*EXPLOSION_SPEED;
+			xPos[count] = (float)x;
+			yPos[count] = (float)y;
+			xVel[count] = (float)(Math.cos(angle)*speed);
+			yVel[count] = (float)(Math.sin(angle)*speed);
+			life[count] = maxLife[count] = EXPLOSION_LIFE/2 + r.nextInt(EXPLOSION_LIFE/2);
+			count++;
+		}
+	}
+	
+	// remove every particle, keeping the buffers for the next game
+	public void clear()
+	{
+		count = 0;
+		frameUsed = 0;
+		lastFlameCurves = 0;
+		lastDelta = 0;
+	}
+	
+	// move the particles and remove the ones that have burnt out
+	public void update(long delta)
+	{
+		int i = 0;
+		
+		lastDelta = delta;
+		while (i < count)
+		{
+			life[i] -= delta;
+			if (life[i] <= 0)
+			{
+				// move the last particle into this slot
+				count--;
+				xPos[i] = xPos[count];
+				yPos[i] = yPos[count];
+				xVel[i] = xVel[count];
+				yVel[i] = yVel[count];
+				life[i] = life[count];
+				maxLife[i] = maxLife[count];
+				continue;
+			}
+			xPos[i] += xVel[i]*delta;
+			yPos[i] += yVel[i]*delta;
+			i++;
+		}
+	}
+	
+	// start counting the budget for a new frame
+	// the live particles are counted first, the flames get what is left
+	public void beginFrame()
+	{
+		frameUsed = count;
+		lastFlameCurves = 0;
+	}
+	
+	// draw the particles
+	// alpha is how far between the last update and now to draw them, like the sprites
+	// particles start bright and fade to a darker red as they burn out
+	public void draw(Graphics2D g2d, double alpha)
+	{
+		float back = (float)((1-alpha)*lastDelta);
+		int color, size;
+		
+		for (int i = 0; i < count; i++)
+		{
+			color = (int)((long)life[i]*(RenderCache.NUM_FLAME_COLORS-1)/maxLife[i]);
+			size = 1 + PARTICLE_SIZE*life[i]/maxLife[i];
+			g2d.setColor(RenderCache.getFlameColor(color));
+			g2d.fillRect((int)(xPos[i] - xVel[i]*back) - size/2, (int)(yPos[i] - yVel[i]*back) - size/2, size, size);
+		}
+	}
+}
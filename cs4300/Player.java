@@ -1,6 +1,5 @@
 package cs4300;
 
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
@@ -9,6 +8,9 @@ import java.awt.geom.GeneralPath;
 // the sprite class used for the player's ship
 public class Player extends CgsSprite
 {
+	// every player shares the one shape
+	private static final SpriteShape playerShape;
+	
 	public Player(Rectangle playArea, double centerX, double centerY)
 	{
 		super(playArea, centerX, centerY);
@@ -17,32 +19,51 @@ public class Player extends CgsSprite
 		collisionDamage = 0;
 		speedMod = 0.2f;
 		fireRateMod = 1.0f;
-
-		// draw the shape of the player
-		baseOutline = new GeneralPath();
-		baseOutline.moveTo(+25,  -6);
-		baseOutline.lineTo(+25,  +6);
-		baseOutline.lineTo(+10,  +6);
-		baseOutline.curveTo(+3, +20, -3, +20, -10,  +6);
-		baseOutline.lineTo(-25,  +6);
-		baseOutline.lineTo(-25,  -6);
-		baseOutline.lineTo(-10, -10);
-		baseOutline.curveTo(-5, -40, +5, -40, +10, -10);
-		baseOutline.lineTo(+25,  -6);
+		collisionLayer = LAYER_PLAYER;
+		collisionMask = LAYER_ENEMY | LAYER_ENEMY_PROJECTILE;
+		
+		setShape(playerShape);
 		engineX = 0;
 		engineY = 18;
 		
-		transOutline = (GeneralPath) baseOutline.clone();
 		updateColor();
-		lineStroke = new BasicStroke(5, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
+		lineStroke = RenderCache.getStroke(LINE_WIDTH);
+	}
+	
+	// put the player back the way it was created, at the passed in position
+	// used when a world is reset for a new game
+	public void reset(double centerX, double centerY)
+	{
+		resetSprite(playArea, centerX, centerY);
+		health = maxHealth;
+		fireRateMod = 1.0f;
+		updateColor();
+	}
+	
+	// the player's shape is created once, when the class is loaded
+	static
+	{
+		// draw the shape of the player
+		GeneralPath outline = new GeneralPath();
+		outline.moveTo(+25,  -6);
+		outline.lineTo(+25,  +6);
+		outline.lineTo(+10,  +6);
+		outline.curveTo(+3, +20, -3, +20, -10,  +6);
+		outline.lineTo(-25,  +6);
+		outline.lineTo(-25,  -6);
+		outline.lineTo(-10, -10);
+		outline.curveTo(-5, -40, +5, -40, +10, -10);
+		outline.lineTo(+25,  -6);
+		playerShape = ShapeRegistry.register("player", outline);
 	}
 	
 	@Override
 	// draw the sprite
-	public void draw(Graphics2D g2d)
+	public void draw(Graphics2D g2d, double alpha, SpriteAtlas atlas)
 	{
+		setDrawTransform(alpha);
 		drawEngine(g2d);
-		super.draw(g2d);
+		super.draw(g2d, alpha, atlas);
 	}
 	
 	@Override
@@ -57,26 +78,27 @@ public class Player extends CgsSprite
 	// make sure the sprite does not leave the play area
 	public void move(double dX, double dY)
 	{
-		Rectangle bounds;
+		double halfWidth, halfHeight;
 		super.move(dX, dY);
 		
-		bounds = transOutline.getBounds();
-		if (xPos+bounds.width/2 > playArea.getMaxX())
+		halfWidth = (maxX-minX)/2;
+		halfHeight = (maxY-minY)/2;
+		if (xPos+halfWidth > playArea.getMaxX())
 		{
-			xPos = playArea.getMaxX()-bounds.getWidth()/2;
+			xPos = playArea.getMaxX()-halfWidth;
 		}
-		else if (xPos-bounds.width/2 < playArea.getMinX())
+		else if (xPos-halfWidth < playArea.getMinX())
 		{
-			xPos = playArea.getMinX()+bounds.getWidth()/2;
+			xPos = playArea.getMinX()+halfWidth;
 		}
 		
-		if (yPos+bounds.height/2 > playArea.getMaxY())
+		if (yPos+halfHeight > playArea.getMaxY())
 		{
-			yPos = playArea.getMaxY()-bounds.getHeight()/2;
+			yPos = playArea.getMaxY()-halfHeight;
 		}
-		else if (yPos-bounds.height/2 < playArea.getMinY())
+		else if (yPos-halfHeight < playArea.getMinY())
 		{
-			yPos = playArea.getMinY()+bounds.getHeight()/2;
+			yPos = playArea.getMinY()+halfHeight;
 		}
 	}
 	
@@ -86,35 +108,61 @@ public class Player extends CgsSprite
 	// returns false if the point was outside the play Area
 	public boolean relocate(double centerX, double centerY)
 	{
-		Rectangle bounds;
+		double halfWidth, halfHeight;
 		
 		super.relocate(centerX, centerY);
-		bounds = transOutline.getBounds();
+		halfWidth = (maxX-minX)/2;
+		halfHeight = (maxY-minY)/2;
 		
-		if (centerX+bounds.width/2 > playArea.getMaxX())
+		if (centerX+halfWidth > playArea.getMaxX())
 		{
-			centerX = playArea.getMaxX()-bounds.getWidth()/2;
+			centerX = playArea.getMaxX()-halfWidth;
 			return (false);
 		}
-		else if (centerX-bounds.width/2 < playArea.getMinX())
+		else if (centerX-halfWidth < playArea.getMinX())
 		{
-			centerX = playArea.getMinX()+bounds.getWidth()/2;
+			centerX = playArea.getMinX()+halfWidth;
 			return (false);
 		}
 		
-		if (centerY+bounds.height/2 > playArea.getMaxY())
+		if (centerY+halfHeight > playArea.getMaxY())
 		{
-			centerY = playArea.getMaxY()-bounds.getHeight()/2;
+			centerY = playArea.getMaxY()-halfHeight;
 			return (false);
 		}
-		else if (centerY-bounds.height/2 < playArea.getMinY())
+		else if (centerY-halfHeight < playArea.getMinY())
 		{
-			centerY = playArea.getMinY()+bounds.getHeight()/2;
+			centerY = playArea.getMinY()+halfHeight;
 			return (false);
 		}
 		return (true);
 	}
 	
+	@Override
+	// the sprite's atlas tint depends on its health
+	protected int getTintIndex(int numTints)
+	{
+		float colorMod = (float)health/maxHealth;
+		if (colorMod < 0)
+		{
+			colorMod = 0;
+		}
+		return (Math.round(colorMod*(numTints-1)));
+	}
+	
+	@Override
+	// any of the tints can be used as the sprite takes damage
+	protected int getTintCount(int numTints)
+	{
+		return (numTints);
+	}
+	
+	@Override
+	protected Color getTintColor(int tintIndex, int numTints)
+	{
+		return (SpriteAtlas.healthTint(tintIndex, numTints));
+	}
+	
 	@Override
 	// update the sprite's color based on it's health
 	protected void updateColor()
@@ -125,7 +173,7 @@ public class Player extends CgsSprite
 			colorMod = 0;
 		}
 		// the sprite starts green and becomes red as it takes damage
-		bodyColor = new Color(1-colorMod, colorMod, 0f);
+		bodyColor = RenderCache.getHealthColor(colorMod);
 		lineColor = Color.WHITE;
 	}
 }
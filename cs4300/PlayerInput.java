@@ -0,0 +1,33 @@
+package cs4300;
+
+import cs4300.CgsSprite.WeaponType;
+
+// a snapshot of what the player is doing during a single tick of the game
+// the game world only ever sees input through this class, so it doesn't
+// matter if it came from the keyboard and mouse or from a script
+public class PlayerInput
+{
+	public boolean up, down, left, right;	// movement keys
+	public boolean fire;					// the fire key
+	public boolean mouseDown;				// the left mouse button is being held
+	public boolean mousePressed;			// the left mouse button went down since the last tick
+	public boolean hasMouse;				// the mouse is over the game screen
+	public int mouseX, mouseY;
+	public WeaponType weapon;				// the weapon the player switched to this tick, or null
+	
+	public PlayerInput()
+	{
+		clear();
+	}
+	
+	// reset the input to nothing being pressed
+	public void clear()
+	{
+		up = down = left = right = false;
+		fire = false;
+		mouseDown = mousePressed = false;
+		hasMouse = false;
+		mouseX = mouseY = 0;
+		weapon = null;
+	}
+}
@@ -4,65 +4,180 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Rectangle;
 import java.awt.geom.GeneralPath;
-import java.awt.geom.Line2D;
-import java.awt.geom.PathIterator;
-import java.awt.geom.Point2D;
 
 // the sprite class for the projectiles fired in the game
 public class Projectile extends CgsSprite 
 {
 	private static final int MAX_LASER_GROWTH = 12;
 	private static final float LASER_GROWTH_MOD = 0.02f;
+	private static final float LASER_START_WIDTH = .01f;
+	private static final double MAX_LASER_LENGTH = 4096;	// only used if there is no play area to stop the beam
+	private static final BasicStroke projectileStroke = RenderCache.getStroke(LINE_WIDTH);
+	private static final BasicStroke laserStartStroke = RenderCache.getStroke(LASER_START_WIDTH);
 	
 	private CgsSprite creator;
-	private static final GeneralPath rapidOutline, spreadOutline, laserOutline;
+	private static final SpriteShape rapidShape, spreadShape, laserShape;
 	WeaponType type;
 	
+	// a laser's beam runs from its position to just past the edge of the play area
+	// lasers don't move, so the grid cells the beam crosses are found once and kept
+	private double beamEndX, beamEndY;
+	private double beamDirX, beamDirY;	// the unit direction of the beam
+	private int[] beamCells;
+	private int numBeamCells;			// -1 until the cells have been found
+	
+	public WeaponType getType() { return (type); }
+	public int[] getBeamCells() { return (beamCells); }
+	public int getNumBeamCells() { return (numBeamCells); }
+	
+	// the bounding box of everywhere the projectile has been this tick
+	// for a moving shot this covers its bounds at the start of the tick as well as now
+	public double getSweepMinX() { return (Math.min(minX, minX + prevXPos - xPos)); }
+	public double getSweepMinY() { return (Math.min(minY, minY + prevYPos - yPos)); }
+	public double getSweepMaxX() { return (Math.max(maxX, maxX + prevXPos - xPos)); }
+	public double getSweepMaxY() { return (Math.max(maxY, maxY + prevYPos - yPos)); }
+	
 	// create a projectile of the passed in type
 	public Projectile(WeaponType type, Rectangle playArea, double centerX, double centerY, double rot, CgsSprite creator)
 	{
 		super(playArea, centerX, centerY);
+		init(type, playArea, centerX, centerY, rot, creator);
+	}
+	
+	// create a projectile that isn't in play yet
+	// used to fill a ProjectilePool ahead of time
+	Projectile()
+	{
+		this(WeaponType.RAPID, null, 0, 0, 0, null);
+	}
+	
+	// set up the projectile as if it had just been created
+	// this lets a ProjectilePool reuse a projectile instead of creating a new one for each shot
+	public void init(WeaponType type, Rectangle playArea, double centerX, double centerY, double rot, CgsSprite creator)
+	{
+		resetSprite(playArea, centerX, centerY);
 		
 		maxHealth = health = 1;
 		collisionDamage = type.damage;
 		speedMod = type.speedMod;
 		this.creator = creator;
-		this.rot = rot;
+		this.rot = prevRot = rot;
 		this.type = type;
 		fireRateMod = 0;
+		numBeamCells = -1;
+		
+		// enemy projectiles can only hit the player and the player's projectiles can only hit enemies
+		// a projectile with no creator is treated as the player's
+		if ((creator != null) && (creator.getCollisionLayer() == LAYER_ENEMY))
+		{
+			collisionLayer = LAYER_ENEMY_PROJECTILE;
+			collisionMask = LAYER_PLAYER;
+		}
+		else
+		{
+			collisionLayer = LAYER_PLAYER_PROJECTILE;
+			collisionMask = LAYER_ENEMY;
+		}
 		
 		// each projectile type has a different look
 		switch (type)
 		{
 		case RAPID:
-			baseOutline = rapidOutline;
+			setShape(rapidShape);
 			break;
 		case SPREAD:
-			baseOutline = spreadOutline;
+			setShape(spreadShape);
 			break;
 		case LASER:
-			baseOutline = laserOutline;
-			lineWidth = .01f;
+			// the laser's shape is one unit long, stretched out to the length of the beam
+			yScale = clipBeam(playArea, centerX, centerY, rot);
+			setShape(laserShape);
+			lineWidth = LASER_START_WIDTH;
 			break;
 		default:
 			// this is an error
-			baseOutline = new GeneralPath();
+			setShape(ShapeRegistry.EMPTY);
 			break;
 		}
-		transOutline = (GeneralPath) baseOutline.clone();
 		
 		// default colors
 		bodyColor = Color.RED;
 		lineColor = Color.BLUE;
 		
-		lineStroke = new BasicStroke(lineWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
+		// the strokes are shared until a laser starts to grow
+		if (type == WeaponType.LASER)
+		{
+			lineStroke = laserStartStroke;
+		}
+		else
+		{
+			lineStroke = projectileStroke;
+		}
 		xOffset = Math.sin(rot) * speedMod;
 		yOffset = -Math.cos(rot) * speedMod;
 	}
 	
-	// Statically create the baseOutlines for the different types of projectiles  
+	// find where a beam fired from the passed in point leaves the play area
+	// the play area is grown by the biggest enemy's radius, so enemies that are still
+	// coming in past the right edge (or hanging off any other edge) can be hit
+	// sets the end of the beam and returns its length
+	private double clipBeam(Rectangle playArea, double x, double y, double rot)
+	{
+		double length = MAX_LASER_LENGTH;
+		double margin = Enemy.getMaxRadius();
+		
+		beamDirX = Math.sin(rot);
+		beamDirY = -Math.cos(rot);
+		if (playArea != null)
+		{
+			// the beam stops at whichever side of the grown play area it reaches first
+			if (beamDirX > 0)
+			{
+				length = Math.min(length, (playArea.getMaxX() + margin - x)/beamDirX);
+			}
+			else if (beamDirX < 0)
+			{
+				length = Math.min(length, (playArea.getMinX() - margin - x)/beamDirX);
+			}
+			if (beamDirY > 0)
+			{
+				length = Math.min(length, (playArea.getMaxY() + margin - y)/beamDirY);
+			}
+			else if (beamDirY < 0)
+			{
+				length = Math.min(length, (playArea.getMinY() - margin - y)/beamDirY);
+			}
+			length = Math.max(length, 0);
+		}
+		
+		beamEndX = x + beamDirX*length;
+		beamEndY = y + beamDirY*length;
+		return (length);
+	}
+	
+	// find the cells of the grid that the laser's beam passes through
+	// the cells only have to be found once, since lasers don't move
+	public void traceBeam(SpatialGrid<?> grid)
+	{
+		if ((beamCells == null) || (beamCells.length < grid.getMaxRayCells()))
+		{
+			beamCells = new int[grid.getMaxRayCells()];
+		}
+		numBeamCells = grid.traceRay(xPos, yPos, beamEndX, beamEndY, beamCells);
+	}
+	
+	// the projectile has left play and is going back to the pool
+	// drop the reference to the sprite that fired it so that sprite can be cleaned up
+	public void release()
+	{
+		creator = null;
+	}
+	
+	// Statically create the shapes for the different types of projectiles  
 	static
 	{
+		GeneralPath rapidOutline, spreadOutline, laserOutline;
+		
 		// draw the shape of a rapid projectile
 		rapidOutline = new GeneralPath();
 		rapidOutline.moveTo(+5, -5);
@@ -81,7 +196,11 @@ public class Projectile extends CgsSprite
 		// draw the shape of a laser projectile
 		laserOutline = new GeneralPath();
 		laserOutline.moveTo(0, 0);
-		laserOutline.lineTo(0, -4096); // yes this is terrible
+		laserOutline.lineTo(0, -1);
+		
+		rapidShape = ShapeRegistry.register("projectile.rapid", rapidOutline);
+		spreadShape = ShapeRegistry.register("projectile.spread", spreadOutline);
+		laserShape = ShapeRegistry.register("projectile.laser", laserOutline);
 	}
 	
 	// return true if the passed in sprite created this projectile
@@ -123,7 +242,7 @@ public class Projectile extends CgsSprite
 		if (lineWidth < MAX_LASER_GROWTH)
 		{
 			lineWidth += delta*LASER_GROWTH_MOD;
-			lineStroke = new BasicStroke(lineWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
+			lineStroke = RenderCache.getStroke(lineWidth);
 		}
 		else
 		{
@@ -136,53 +255,100 @@ public class Projectile extends CgsSprite
 	// not used for projectiles
 	protected void updateColor() {}
 	
+	@Override
+	// lasers change width as they grow, so they are always drawn from their outline
+	protected boolean useAtlas()
+	{
+		return ((type != WeaponType.LASER) && (super.useAtlas() == true));
+	}
+	
 	@Override
 	// check if this projectile has collided with the passed in sprite
 	public boolean checkCollision(CgsSprite spr)
 	{
-		PathIterator pit;
-		double coords[] = new double[6];
-		double prevX, prevY;
-		GeneralPath ol = getOutline();
-		Point2D endPoint = ol.getCurrentPoint();
-		int segType;
-		
-		// laser collision is more complicated
-		if (type == WeaponType.LASER)
+		switch (type)
 		{
-			pit = spr.getOutline().getPathIterator(null);
-			pit.currentSegment(coords);
-			prevX = coords[0];
-			prevY = coords[1];
-			
-			// walk through each point along the outline of the sprite
-			// checking if the laser intersects any line in the sprite
-			while (pit.isDone() == false)
-			{
-				// currentSegment fills the coords array with points in the current segment
-				// if the segment is a line it returns 1
-				// if the segment is a bezier curve it returns 3 
-				// (which also happens to be the number of reference points used to create the curve)
-				// treat a bezier curve as a series of lines between it's reference points
-				segType = pit.currentSegment(coords);
-				for (int i = 0; i < segType; i++)
-				{
-					if (Line2D.linesIntersect(xPos, yPos, endPoint.getX(), endPoint.getY(), 
-											  prevX, prevY, coords[0+i*2], coords[1+i*2]) == true)
-					{
-						// an intersection was detected, meaning this sprite was hit
-						return (true);
-					}
-					prevX = coords[0+i*2];
-					prevY = coords[1+i*2];
-				}
-				pit.next();
-			}
-			// no intersection was found after checking each line segment in the outline
+		case LASER:
+			return (checkBeamCollision(spr));
+		case RAPID:
+		case SPREAD:
+			return (checkSweptCollision(spr));
+		default:
+			return (super.checkCollision(spr));
+		}
+	}
+	
+	// check if the laser's beam crosses the passed in sprite
+	private boolean checkBeamCollision(CgsSprite spr)
+	{
+		double toX, toY, along, distX, distY;
+		
+		if (boundsOverlap(spr) == false)
+		{
+			// the sprites are too far apart to be touching
 			return (false);
 		}
-		// other projectile types use standard collision detection
-		return (super.checkCollision(spr));
+		
+		// find the point on the beam closest to the sprite's center,
+		// if that is farther away than the sprite's radius the beam can't touch it
+		toX = spr.xPos - xPos;
+		toY = spr.yPos - yPos;
+		along = Math.max(0, Math.min(toX*beamDirX + toY*beamDirY, yScale));
+		distX = toX - beamDirX*along;
+		distY = toY - beamDirY*along;
+		if (distX*distX + distY*distY > spr.boundRadius*spr.boundRadius)
+		{
+			return (false);
+		}
+		
+		// check the beam against each line in the sprite's outline
+		return (spr.shape.crossesSegment(spr.transVerts, xPos, yPos, beamEndX, beamEndY));
+	}
+	
+	// check if the shot touched the passed in sprite anywhere along the path it moved this tick
+	// a long tick can move a shot right past a sprite, so as well as checking where the shot is now,
+	// the lines traced by its center and its two sides since the start of the tick are checked
+	// against the sprite's outline (as it is now, sprites move much slower than shots)
+	private boolean checkSweptCollision(CgsSprite spr)
+	{
+		double dx = xPos - prevXPos;
+		double dy = yPos - prevYPos;
+		double len, toX, toY, along, distX, distY, reach, sideX, sideY;
+		
+		if ((getSweepMinX() > spr.maxX) || (getSweepMaxX() < spr.minX) ||
+			(getSweepMinY() > spr.maxY) || (getSweepMaxY() < spr.minY))
+		{
+			// the sprite is nowhere near the shot's path
+			return (false);
+		}
+		if (super.checkCollision(spr) == true)
+		{
+			return (true);
+		}
+		len = Math.sqrt(dx*dx + dy*dy);
+		if (len == 0)
+		{
+			return (false);
+		}
+		
+		// if the sprite's center is farther from the path than both radii, the path can't touch it
+		toX = spr.xPos - prevXPos;
+		toY = spr.yPos - prevYPos;
+		along = Math.max(0, Math.min((toX*dx + toY*dy)/len, len));
+		distX = toX - dx/len*along;
+		distY = toY - dy/len*along;
+		reach = spr.boundRadius + boundRadius;
+		if (distX*distX + distY*distY > reach*reach)
+		{
+			return (false);
+		}
+		
+		// the shot's sides are half its width to either side of its center, across the direction it moves
+		sideX = -dy/len*shape.getBounds().getMaxX()*Math.abs(xScale);
+		sideY = dx/len*shape.getBounds().getMaxX()*Math.abs(xScale);
+		return ((spr.shape.crossesSegment(spr.transVerts, prevXPos, prevYPos, xPos, yPos) == true) ||
+				(spr.shape.crossesSegment(spr.transVerts, prevXPos+sideX, prevYPos+sideY, xPos+sideX, yPos+sideY) == true) ||
+				(spr.shape.crossesSegment(spr.transVerts, prevXPos-sideX, prevYPos-sideY, xPos-sideX, yPos-sideY) == true));
 	}
 	
 	// determine if the sprite should be removed after it impacts another sprite
@@ -0,0 +1,86 @@
+package cs4300;
+
+import java.awt.Rectangle;
+
+import cs4300.CgsSprite.WeaponType;
+
+// a pool of projectiles that are reused from shot to shot
+// projectiles are taken from the pool when fired and returned to it when they
+// leave play, so a steady rate of fire doesn't create any new objects
+// a pool is not thread safe, each game world has its own
+public class ProjectilePool
+{
+	private Projectile[] free;
+	private int freeCount;
+	private long created;		// the number of projectiles the pool has ever created
+	private long hits;			// the number of times a projectile was reused
+	private long misses;		// the number of times the pool was empty and a new one was created
+	
+	public int getFreeCount() { return (freeCount); }
+	public long getCreated() { return (created); }
+	public long getHits() { return (hits); }
+	public long getMisses() { return (misses); }
+	
+	// create a pool that starts out holding the passed in number of projectiles
+	public ProjectilePool(int initialSize)
+	{
+		free = new Projectile[Math.max(initialSize, 16)];
+		freeCount = 0;
+		created = 0;
+		hits = 0;
+		misses = 0;
+		
+		for (int i = 0; i < initialSize; i++)
+		{
+			free[freeCount++] = new Projectile();
+			created++;
+		}
+	}
+	
+	// get a projectile of the passed in type, ready to be put into play
+	public Projectile acquire(WeaponType type, Rectangle playArea, double centerX, double centerY, double rot, CgsSprite creator)
+	{
+		Projectile proj;
+		
+		if (freeCount > 0)
+		{
+			proj = free[--freeCount];
+			free[freeCount] = null;
+			proj.init(type, playArea, centerX, centerY, rot, creator);
+			hits++;
+		}
+		else
+		{
+			proj = new Projectile(type, playArea, centerX, centerY, rot, creator);
+			created++;
+			misses++;
+		}
+		return (proj);
+	}
+	
+	// return a projectile that has left play to the pool
+	// the projectile must not be used again until it is acquired
+	public void release(Projectile proj)
+	{
+		Projectile[] bigger;
+		
+		proj.release();
+		if (freeCount == free.length)
+		{
+			bigger = new Projectile[free.length*2];
+			System.arraycopy(free, 0, bigger, 0, freeCount);
+			free = bigger;
+		}
+		free[freeCount++] = proj;
+	}
+	
+	// the fraction of acquires that reused a projectile
+	public double getHitRate()
+	{
+		if (hits+misses == 0)
+		{
+			return (0);
+		}
+		return ((double)hits/(hits+misses));
+	}
+}
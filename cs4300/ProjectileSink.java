@@ -0,0 +1,8 @@
+package cs4300;
+
+// somewhere that newly fired projectiles can be put
+public interface ProjectileSink
+{
+	// take ownership of a projectile that was just fired
+	public void addProjectile(Projectile proj);
+}
@@ -0,0 +1,168 @@
+package cs4300;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// strokes, colors, fonts and text layouts shared by everything that draws
+// these used to be created fresh every time they were needed, several times a frame for
+// every sprite, so drawing at a steady rate kept the garbage collector busy
+// strokes are rounded to the nearest STROKE_STEP and colors come from fixed palettes,
+// so there are only a limited number of each and they are all made up front
+// (the simulation threads use these too, so looking one up never takes a lock)
+// fonts and text layouts are made the first time they are asked for, and text layouts
+// depend on the string, so only the MAX_LAYOUTS most recently used of each size are kept
+// their hits and misses are counted so the profiler overlay can show that nothing new is being made
+public class RenderCache
+{
+	public static final float STROKE_STEP = 0.25f;
+	private static final float MAX_STROKE_WIDTH = 64;
+	private static final int HEALTH_SHADES = 64;
+	private static final int FLAME_REDS = 8, FLAME_GREENS = 8;
+	public static final int NUM_FLAME_COLORS = FLAME_REDS*FLAME_GREENS;
+	private static final String FONT_NAME = "Courier";
+	private static final int MAX_LAYOUTS = 64;
+	
+	private static final BasicStroke[] strokes = new BasicStroke[(int)(MAX_STROKE_WIDTH/STROKE_STEP)+1];
+	private static final Color[] healthColors = new Color[HEALTH_SHADES];
+	private static final Color[] flameColors = new Color[NUM_FLAME_COLORS];
+	private static final HashMap<Integer, Font> fonts = new HashMap<Integer, Font>();
+	private static final HashMap<Integer, LinkedHashMap<String, TextLayout>> layouts =
+			new HashMap<Integer, LinkedHashMap<String, TextLayout>>();
+	private static FontRenderContext layoutContext;		// the context the cached layouts were made for
+	private static int numLayouts;
+	
+	private static long fontHits, fontMisses;
+	private static long layoutHits, layoutMisses;
+	
+	// the strokes and palettes are small, so they are filled in when the class is loaded
+	static
+	{
+		float colorMod;
+		
+		// a zero width stroke draws a one pixel line, so the thinnest stroke is a little wider than zero
+		for (int i = 0; i < strokes.length; i++)
+		{
+			strokes[i] = new BasicStroke(Math.max(i*STROKE_STEP, 0.01f), BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
+		}
+		
+		// health goes from red with no health left to green at full health
+		for (int i = 0; i < HEALTH_SHADES; i++)
+		{
+			colorMod = (float)i/(HEALTH_SHADES-1);
+			healthColors[i] = new Color(1-colorMod, colorMod, 0);
+		}
+		
+		// flames are reddish-orange, from 100 to 255 red and 50 to 150 green
+		for (int r = 0; r < FLAME_REDS; r++)
+		{
+			for (int g = 0; g < FLAME_GREENS; g++)
+			{
+				flameColors[r*FLAME_GREENS+g] = new Color(100 + r*155/(FLAME_REDS-1), 50 + g*100/(FLAME_GREENS-1), 0);
+			}
+		}
+	}
+	
+	// get a round capped stroke of about the passed in width
+	// the width is rounded to the nearest STROKE_STEP
+	public static BasicStroke getStroke(float width)
+	{
+		return (strokes[Math.round(Math.max(0, Math.min(width, MAX_STROKE_WIDTH))/STROKE_STEP)]);
+	}
+	
+	// the color for a sprite with the passed in fraction of its health left
+	public static Color getHealthColor(float fraction)
+	{
+		int index = Math.round(Math.max(0, Math.min(fraction, 1))*(HEALTH_SHADES-1));
+		
+		return (healthColors[index]);
+	}
+	
+	// one of the reddish-orange colors used for flames
+	// the higher the index the brighter the color
+	public static Color getFlameColor(int index)
+	{
+		return (flameColors[index]);
+	}
+	
+	// get the bold font of the passed in size used for menu text
+	public static synchronized Font getFont(int size)
+	{
+		Font font = fonts.get(size);
+		
+		if (font == null)
+		{
+			fontMisses++;
+			font = new Font(FONT_NAME, Font.BOLD, size);
+			fonts.put(size, font);
+		}
+		else
+		{
+			fontHits++;
+		}
+		return (font);
+	}
+	
+	// get the layout of a string in the menu font of the passed in size
+	// layouts are only good for one render context, so the cache starts over if it changes
+	// once a size has MAX_LAYOUTS strings, the one that was used longest ago is dropped for the new one
+	public static synchronized TextLayout getTextLayout(String text, int size, FontRenderContext frc)
+	{
+		LinkedHashMap<String, TextLayout> sized;
+		TextLayout layout;
+		
+		if ((layoutContext == null) || (layoutContext.equals(frc) == false))
+		{
+			layouts.clear();
+			layoutContext = frc;
+			numLayouts = 0;
+		}
+		
+		sized = layouts.get(size);
+		if (sized == null)
+		{
+			// kept in the order the layouts were used, least recently used first
+			sized = new LinkedHashMap<String, TextLayout>(16, 0.75f, true)
+			{
+				private static final long serialVersionUID = 1L;
+				
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, TextLayout> eldest)
+				{
+					if (size() > MAX_LAYOUTS)
+					{
+						numLayouts--;
+						return (true);
+					}
+					return (false);
+				}
+			};
+			layouts.put(size, sized);
+		}
+		layout = sized.get(text);
+		if (layout == null)
+		{
+			layoutMisses++;
+			layout = new TextLayout(text, getFont(size), frc);
+			sized.put(text, layout);
+			numLayouts++;
+		}
+		else
+		{
+			layoutHits++;
+		}
+		return (layout);
+	}
+	
+	// a line describing how well the cache is doing, for the profiler overlay
+	public static synchronized String getSummary()
+	{
+		return (String.format("render cache hits/misses: fonts %d/%d, text %d/%d (%d kept)",
+							  fontHits, fontMisses, layoutHits, layoutMisses, numLayouts));
+	}
+}
@@ -0,0 +1,74 @@
+package cs4300;
+
+import java.awt.Rectangle;
+
+import cs4300.CgsSprite.WeaponType;
+
+// an input source that plays back a fixed pattern instead of reading the keyboard and mouse
+// the player's aim sweeps up and down the play area, the ship drifts up and down,
+// and the weapon is always firing
+// the same script always produces the same input, which makes it useful for
+// running the game without a display for soak tests and benchmarks
+public class ScriptedInput implements InputSource
+{
+	private static final long SWEEP_TICKS = 300;	// ticks for the aim to sweep up and back down
+	private static final long DRIFT_TICKS = 120;	// ticks spent drifting in each direction
+	
+	private Rectangle playArea;
+	private WeaponType[] weapons;
+	private long weaponTicks;
+	private long tick;
+	
+	// create a script that cycles through the passed in weapons,
+	// switching every weaponTicks ticks (0 never switches)
+	public ScriptedInput(Rectangle playArea, WeaponType[] weapons, long weaponTicks)
+	{
+		this.playArea = playArea;
+		this.weapons = weapons;
+		this.weaponTicks = weaponTicks;
+		tick = 0;
+	}
+	
+	// create a script that only uses one weapon
+	public ScriptedInput(Rectangle playArea, WeaponType weapon)
+	{
+		this(playArea, new WeaponType[] { weapon }, 0);
+	}
+	
+	@Override
+	public void nextInput(PlayerInput input)
+	{
+		double phase;
+		
+		input.clear();
+		
+		// aim at a point that sweeps up and down the right side of the play area
+		phase = (double)(tick % SWEEP_TICKS)/SWEEP_TICKS;
+		input.hasMouse = true;
+		input.mouseX = playArea.x + (playArea.width*3)/4;
+		input.mouseY = playArea.y + (int)(playArea.height*(0.5 + 0.45*Math.sin(2*Math.PI*phase)));
+		
+		// drift up and down
+		if ((tick/DRIFT_TICKS)%2 == 0)
+		{
+			input.up = true;
+		}
+		else
+		{
+			input.down = true;
+		}
+		
+		input.fire = true;
+		
+		// switch weapons on schedule, starting with the first one
+		if ((tick == 0) || ((weaponTicks > 0) && (tick%weaponTicks == 0)))
+		{
+			if (weapons.length > 0)
+			{
+				input.weapon = weapons[(int)((weaponTicks > 0 ? tick/weaponTicks : 0)%weapons.length)];
+			}
+		}
+		
+		tick++;
+	}
+}
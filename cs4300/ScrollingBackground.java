@@ -0,0 +1,126 @@
+package cs4300;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+// the scrolling background behind the game screen
+// the textured effect of the background is made by overlaying
+// a translucent pattern on a solid color (gray by default)
+// rather than filling the whole window with a gradient every frame, the pattern
+// is drawn once into a strip two periods wide and the strip is copied across the screen
+public class ScrollingBackground
+{
+	private static final Color TEXTURE_COLOR_1 = new Color(0,0,0,170);
+	private static final Color TEXTURE_COLOR_2 = new Color(0,0,0,90);
+	private static final int TEXTURE_WIDTH = 90;
+	private static final int PERIOD = TEXTURE_WIDTH*2;		// the width of one full light-dark-light cycle
+	private static final float SCROLL_MOD = 0.2f;
+	
+	private ColorScheme colors;
+	private float scrollPos, prevScrollPos;
+	private boolean cached;
+	
+	// the cached strip and what it was drawn for
+	private BufferedImage strip;
+	private Color stripColor;
+	private int stripHeight;
+	
+	public boolean isCached() { return (cached); }
+	public void setCached(boolean cached) { this.cached = cached; }
+	
+	public ScrollingBackground(ColorScheme colors)
+	{
+		this.colors = colors;
+		scrollPos = prevScrollPos = PERIOD;
+		cached = true;
+		strip = null;
+	}
+	
+	// remember the scroll position at the start of a tick
+	public void savePrevState()
+	{
+		prevScrollPos = scrollPos;
+	}
+	
+	// advance the background movement
+	public void update(long delta)
+	{
+		scrollPos -= delta*SCROLL_MOD;
+		if (scrollPos <= 0)
+		{
+			scrollPos += PERIOD;
+			prevScrollPos += PERIOD;
+		}
+	}
+	
+	// draw the background over the whole window
+	// alpha is how far between the last two ticks to draw the scroll position
+	public void draw(Graphics2D g2d, Dimension winSize, double alpha)
+	{
+		float pos = (float)(prevScrollPos + (scrollPos-prevScrollPos)*alpha);
+		
+		if (cached == true)
+		{
+			drawCached(g2d, winSize, pos);
+		}
+		else
+		{
+			drawFilled(g2d, winSize, pos);
+		}
+	}
+	
+	// copy the cached strip across the window, lined up with the scroll position
+	private void drawCached(Graphics2D g2d, Dimension winSize, float pos)
+	{
+		int x;
+		
+		if ((strip == null) || (stripHeight != winSize.height) ||
+			(colors.backgroundColor.equals(stripColor) == false))
+		{
+			buildStrip(g2d, winSize.height);
+		}
+		
+		// the pattern repeats every PERIOD pixels, so start the first copy
+		// one period to the left of where the pattern lines up with pos
+		x = Math.round(pos) % PERIOD - PERIOD;
+		while (x < winSize.width)
+		{
+			g2d.drawImage(strip, x, 0, null);
+			x += strip.getWidth();
+		}
+	}
+	
+	// draw the background the original way, filling the whole window twice
+	private void drawFilled(Graphics2D g2d, Dimension winSize, float pos)
+	{
+		g2d.setColor(colors.backgroundColor);
+		g2d.fillRect(0, 0, winSize.width, winSize.height);
+		
+		g2d.setPaint(new GradientPaint(pos, 0, TEXTURE_COLOR_1, TEXTURE_WIDTH+pos, 0, TEXTURE_COLOR_2, true));
+		g2d.fillRect(0, 0, winSize.width, winSize.height);
+	}
+	
+	// draw the background pattern into a strip two periods wide
+	// this only happens when the window height or background color changes
+	private void buildStrip(Graphics2D g2d, int height)
+	{
+		Graphics2D stripG2d;
+		int width = PERIOD*2;
+		
+		// an opaque image compatible with the screen can be copied without any blending
+		strip = g2d.getDeviceConfiguration().createCompatibleImage(width, height, Transparency.OPAQUE);
+		stripHeight = height;
+		stripColor = colors.backgroundColor;
+		
+		stripG2d = strip.createGraphics();
+		stripG2d.setColor(colors.backgroundColor);
+		stripG2d.fillRect(0, 0, width, height);
+		stripG2d.setPaint(new GradientPaint(0, 0, TEXTURE_COLOR_1, TEXTURE_WIDTH, 0, TEXTURE_COLOR_2, true));
+		stripG2d.fillRect(0, 0, width, height);
+		stripG2d.dispose();
+	}
+}
@@ -0,0 +1,39 @@
+package cs4300;
+
+import java.awt.geom.GeneralPath;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+// every sprite outline in the game, built once when the sprite classes are loaded
+// each outline is turned into a SpriteShape when it is registered, so the flattening and
+// splitting into convex pieces happens at startup and never during play
+// sprites of the same type all share the one registered shape
+public class ShapeRegistry
+{
+	private static final LinkedHashMap<String, SpriteShape> shapes = new LinkedHashMap<String, SpriteShape>();
+	
+	// the shape with no outline, for sprites that shouldn't be drawn or hit
+	public static final SpriteShape EMPTY = register("empty", new GeneralPath());
+	
+	// build the shape for an outline and remember it under the passed in name
+	// the outline should not be changed afterwards
+	public static synchronized SpriteShape register(String name, GeneralPath outline)
+	{
+		SpriteShape shape = new SpriteShape(outline);
+		
+		shapes.put(name, shape);
+		return (shape);
+	}
+	
+	// get the shape registered under the passed in name, or null if there isn't one
+	public static synchronized SpriteShape get(String name)
+	{
+		return (shapes.get(name));
+	}
+	
+	// the names of every registered shape, in the order they were registered
+	public static synchronized ArrayList<String> getNames()
+	{
+		return (new ArrayList<String>(shapes.keySet()));
+	}
+}
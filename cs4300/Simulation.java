@@ -0,0 +1,188 @@
+package cs4300;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import cs4300.CgsSprite.WeaponType;
+
+// runs the game world with scripted input and no display
+// whenever the player dies a new session is started, until the requested number of ticks have run
+// usage: java -Djava.awt.headless=true cs4300.Simulation [ticks] [tickMillis] [seed]
+// each session's world is seeded from the seed, so runs with the same arguments give the same results
+// with -Dcgs.profileFile=<file> the phases of each tick are written to the file,
+// in the same format as the game's frame profile
+// with -Dcgs.replay=<file> a recording made by the game is played back as fast as possible instead,
+// and with -Dcgs.record=<file> the first session's scripted input is recorded
+public class Simulation
+{
+	private static final int DEF_TICKS = 100000;
+	private static final long DEF_TICK_MILLIS = 10;
+	public static final long DEF_SEED = 4300;
+	
+	// the same layout the game screen uses for a 1920x1200 window
+	public static final int WIN_WIDTH = 1920;
+	public static final int WIN_HEIGHT = 1200;
+	public static final int MENU_HEIGHT = (int)(WIN_HEIGHT*.1f);
+	
+	public static void main(String[] args)
+	{
+		int ticks = DEF_TICKS;
+		long tickMillis = DEF_TICK_MILLIS;
+		Rectangle playArea;
+		GameWorld world;
+		ScriptedInput script;
+		PlayerInput input;
+		int sessions, totalScore;
+		long startTime, elapsed;
+		long tickStart;
+		long seed = DEF_SEED;
+		SplittableRandom sessionSeeds;
+		FrameProfiler profiler = null;
+		InputRecorder recorder = null;
+		
+		if (args.length > 0)
+		{
+			ticks = Integer.parseInt(args[0]);
+		}
+		if (args.length > 1)
+		{
+			tickMillis = Long.parseLong(args[1]);
+		}
+		if (args.length > 2)
+		{
+			seed = Long.parseLong(args[2]);
+		}
+		
+		playArea = createPlayArea();
+		if (System.getProperty("cgs.replay") != null)
+		{
+			replay(System.getProperty("cgs.replay"));
+			return;
+		}
+		script = new ScriptedInput(playArea, WeaponType.values(), 500);
+		input = new PlayerInput();
+		sessionSeeds = new SplittableRandom(seed);
+		world = createWorld(playArea, sessionSeeds.nextLong());
+		if (System.getProperty("cgs.profileFile") != null)
+		{
+			profiler = new FrameProfiler();
+			profiler.setInterval(Long.getLong("cgs.profileInterval", FrameProfiler.DEF_INTERVAL));
+			profiler.setDumpFile(System.getProperty("cgs.profileFile"));
+			world.setProfiler(profiler);
+		}
+		if (System.getProperty("cgs.record") != null)
+		{
+			try
+			{
+				recorder = new InputRecorder(System.getProperty("cgs.record"), world, tickMillis);
+			}
+			catch (IOException ex)
+			{
+				ex.printStackTrace();
+			}
+		}
+		sessions = 1;
+		totalScore = 0;
+		
+		startTime = System.nanoTime();
+		for (int i = 0; i < ticks; i++)
+		{
+			tickStart = System.nanoTime();
+			script.nextInput(input);
+			if (recorder != null)
+			{
+				recorder.record(input);
+			}
+			world.tick(tickMillis, input);
+			if (profiler != null)
+			{
+				// each tick is counted as a frame
+				profiler.endFrame(System.nanoTime() - tickStart, 
+								  world.getNumProjectiles(), world.getEnemies().size());
+			}
+			
+			if (world.isPlayerAlive() == false)
+			{
+				// the player died, start a new session
+				totalScore += world.getScore();
+				if (recorder != null)
+				{
+					System.out.println("recorded score: " + world.getScore());
+					recorder.close();
+					recorder = null;
+				}
+				world = createWorld(playArea, sessionSeeds.nextLong());
+				world.setProfiler(profiler);
+				sessions++;
+			}
+		}
+		if (profiler != null)
+		{
+			profiler.closeDumpFile();
+		}
+		if (recorder != null)
+		{
+			System.out.println("recorded score: " + world.getScore());
+			recorder.close();
+		}
+		elapsed = System.nanoTime() - startTime;
+		totalScore += world.getScore();
+		
+		System.out.println("seed:         " + seed);
+		System.out.println("ticks:        " + ticks);
+		System.out.println("sessions:     " + sessions);
+		System.out.println("total score:  " + totalScore);
+		System.out.println("seconds:      " + (elapsed/1e9));
+		System.out.println("ticks/second: " + (long)(ticks/(elapsed/1e9)));
+		System.out.println("pool created: " + world.getProjectilePool().getCreated());
+		System.out.println("pool hits:    " + (float)world.getProjectilePool().getHitRate());
+	}
+	
+	// play a recording back with no display, as fast as possible
+	// the world is made with the play area and player start that were recorded
+	private static void replay(String path)
+	{
+		InputReplay replay;
+		GameWorld world;
+		PlayerInput input = new PlayerInput();
+		long startTime, elapsed;
+		
+		try
+		{
+			replay = new InputReplay(path);
+		}
+		catch (IOException ex)
+		{
+			ex.printStackTrace();
+			return;
+		}
+		world = new GameWorld(replay.getPlayArea(), replay.getStartX(), replay.getStartY(), replay.getSeed());
+		
+		startTime = System.nanoTime();
+		while ((replay.isFinished() == false) && (world.isPlayerAlive() == true))
+		{
+			replay.nextInput(input);
+			world.tick(replay.getTickMillis(), input);
+		}
+		elapsed = System.nanoTime() - startTime;
+		
+		System.out.println("seed:         " + replay.getSeed());
+		System.out.println("ticks:        " + replay.getTick() + " of " + replay.getTickCount());
+		System.out.println("score:        " + world.getScore());
+		System.out.println("seconds:      " + (elapsed/1e9));
+		System.out.println("ticks/second: " + (long)(replay.getTick()/(elapsed/1e9)));
+	}
+	
+	// the play area is the window minus the game menu at the top of the screen
+	public static Rectangle createPlayArea()
+	{
+		return (new Rectangle(0, MENU_HEIGHT, WIN_WIDTH, WIN_HEIGHT-MENU_HEIGHT));
+	}
+	
+	// create a world with the player where the game screen would put them
+	public static GameWorld createWorld(Rectangle playArea, long seed)
+	{
+		return (new GameWorld(playArea, WIN_WIDTH/10, WIN_HEIGHT/2, seed));
+	}
+}
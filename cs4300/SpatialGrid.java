@@ -0,0 +1,338 @@
+package cs4300;
+
+import java.awt.Rectangle;
+
+// a uniform grid laid over the play area that is used to quickly find
+// the sprites that could be touching a given region
+// sprites are added along with their bounding box each tick, then build() sorts them
+// into cells so that a query only has to look at the sprites in the cells it overlaps
+// all of the storage is reused from tick to tick, so a steady number of sprites
+// doesn't allocate anything
+public class SpatialGrid<T extends CgsSprite>
+{
+	private static final int INITIAL_CAPACITY = 64;
+	
+	private int originX, originY;
+	private int cellSize;
+	private int cols, rows;
+	
+	// the sprites added since the last clear and the range of cells each one covers
+	private Object[] sprites;
+	private int[] minCol, minRow, maxCol, maxRow;
+	private int[] stamp;		// the last query that returned each sprite, to avoid returning it twice
+	private int count;
+	
+	// cellStart[c] to cellStart[c+1] is the range in cellItems of the sprites in cell c
+	private int[] cellStart;
+	private int[] cellItems;
+	
+	// the results of the last query
+	private int[] results;
+	private int resultCount;
+	private int queryId;
+	
+	public int getCellSize() { return (cellSize); }
+	public int getMaxRayCells() { return (cols+rows); }	// the most cells a line across the grid can pass through
+	public int size() { return (count); }
+	
+	// create a grid covering the passed in area, made of square cells of the passed in size
+	public SpatialGrid(Rectangle area, int cellSize)
+	{
+		this.cellSize = cellSize;
+		originX = area.x;
+		originY = area.y;
+		cols = Math.max(1, (area.width+cellSize-1)/cellSize);
+		rows = Math.max(1, (area.height+cellSize-1)/cellSize);
+		
+		sprites = new Object[INITIAL_CAPACITY];
+		minCol = new int[INITIAL_CAPACITY];
+		minRow = new int[INITIAL_CAPACITY];
+		maxCol = new int[INITIAL_CAPACITY];
+		maxRow = new int[INITIAL_CAPACITY];
+		stamp = new int[INITIAL_CAPACITY];
+		cellStart = new int[cols*rows+1];
+		cellItems = new int[INITIAL_CAPACITY];
+		results = new int[INITIAL_CAPACITY];
+		count = 0;
+		resultCount = 0;
+		queryId = 0;
+	}
+	
+	// remove all sprites from the grid
+	public void clear()
+	{
+		for (int i = 0; i < count; i++)
+		{
+			sprites[i] = null;
+		}
+		count = 0;
+		resultCount = 0;
+	}
+	
+	// add a sprite covering the passed in bounding box
+	// the sprite can't be found by a query until build() is called
+	public void add(T spr, double minX, double minY, double maxX, double maxY)
+	{
+		if (count == sprites.length)
+		{
+			growSprites();
+		}
+		sprites[count] = spr;
+		minCol[count] = toCol(minX);
+		minRow[count] = toRow(minY);
+		maxCol[count] = toCol(maxX);
+		maxRow[count] = toRow(maxY);
+		stamp[count] = queryId;
+		count++;
+	}
+	
+	// sort the added sprites into their cells
+	public void build()
+	{
+		int numCells = cols*rows;
+		int total, cell, c;
+		
+		// count how many sprites land in each cell
+		for (c = 0; c <= numCells; c++)
+		{
+			cellStart[c] = 0;
+		}
+		total = 0;
+		for (int i = 0; i < count; i++)
+		{
+			for (int row = minRow[i]; row <= maxRow[i]; row++)
+			{
+				for (int col = minCol[i]; col <= maxCol[i]; col++)
+				{
+					cellStart[row*cols+col+1]++;
+					total++;
+				}
+			}
+		}
+		if (total > cellItems.length)
+		{
+			cellItems = new int[Math.max(total, cellItems.length*2)];
+		}
+		
+		// turn the counts into the starting position of each cell
+		for (c = 1; c <= numCells; c++)
+		{
+			cellStart[c] += cellStart[c-1];
+		}
+		
+		// fill in the cells, using cellStart as the insertion point and then restoring it
+		for (int i = 0; i < count; i++)
+		{
+			for (int row = minRow[i]; row <= maxRow[i]; row++)
+			{
+				for (int col = minCol[i]; col <= maxCol[i]; col++)
+				{
+					cell = row*cols+col;
+					cellItems[cellStart[cell]++] = i;
+				}
+			}
+		}
+		for (c = numCells; c > 0; c--)
+		{
+			cellStart[c] = cellStart[c-1];
+		}
+		cellStart[0] = 0;
+	}
+	
+	// find every sprite whose cells overlap the passed in bounding box
+	// returns the number of sprites found, which can be read with getResult()
+	// each sprite is returned at most once
+	public int query(double minX, double minY, double maxX, double maxY)
+	{
+		int c0 = toCol(minX);
+		int r0 = toRow(minY);
+		int c1 = toCol(maxX);
+		int r1 = toRow(maxY);
+		int cell, item;
+		
+		queryId++;
+		resultCount = 0;
+		for (int row = r0; row <= r1; row++)
+		{
+			for (int col = c0; col <= c1; col++)
+			{
+				cell = row*cols+col;
+				for (int i = cellStart[cell]; i < cellStart[cell+1]; i++)
+				{
+					item = cellItems[i];
+					if (stamp[item] != queryId)
+					{
+						stamp[item] = queryId;
+						addResult(item);
+					}
+				}
+			}
+		}
+		return (resultCount);
+	}
+	
+	// find every sprite in the passed in cells, such as the cells found by traceRay
+	// works the same way as query()
+	public int queryCells(int[] cells, int numCells)
+	{
+		int cell, item;
+		
+		queryId++;
+		resultCount = 0;
+		for (int c = 0; c < numCells; c++)
+		{
+			cell = cells[c];
+			for (int i = cellStart[cell]; i < cellStart[cell+1]; i++)
+			{
+				item = cellItems[i];
+				if (stamp[item] != queryId)
+				{
+					stamp[item] = queryId;
+					addResult(item);
+				}
+			}
+		}
+		return (resultCount);
+	}
+	
+	// find the cells a line segment passes through, in order from (x0, y0) to (x1, y1)
+	// the cells are written into cells, which should hold getMaxRayCells() entries,
+	// and the number of cells is returned
+	// this steps from cell to cell along the line (a DDA traversal), so it only ever
+	// looks at the cells the line actually crosses
+	// the part of the line outside the area runs along the edge cells, where the sprites
+	// hanging off that edge are kept
+	public int traceRay(double x0, double y0, double x1, double y1, int[] cells)
+	{
+		int col = toCol(x0);
+		int row = toRow(y0);
+		int endCol = toCol(x1);
+		int endRow = toRow(y1);
+		double dx = x1 - x0;
+		double dy = y1 - y0;
+		int stepCol = (dx > 0) ? 1 : -1;
+		int stepRow = (dy > 0) ? 1 : -1;
+		double tMaxX, tMaxY, tDeltaX, tDeltaY;
+		int count = 0;
+		
+		// tMax is how far along the line (from 0 to 1) the next column or row border is,
+		// tDelta is how far along the line it is from one border to the next
+		if (dx != 0)
+		{
+			tMaxX = (originX + (col + ((stepCol > 0) ? 1 : 0))*cellSize - x0)/dx;
+			tDeltaX = cellSize/Math.abs(dx);
+		}
+		else
+		{
+			tMaxX = tDeltaX = Double.POSITIVE_INFINITY;
+		}
+		if (dy != 0)
+		{
+			tMaxY = (originY + (row + ((stepRow > 0) ? 1 : 0))*cellSize - y0)/dy;
+			tDeltaY = cellSize/Math.abs(dy);
+		}
+		else
+		{
+			tMaxY = tDeltaY = Double.POSITIVE_INFINITY;
+		}
+		
+		cells[count++] = row*cols+col;
+		while (((col != endCol) || (row != endRow)) && (count < cells.length))
+		{
+			// step into whichever neighbouring cell the line reaches first
+			if (tMaxX < tMaxY)
+			{
+				tMaxX += tDeltaX;
+				if ((col + stepCol < 0) || (col + stepCol >= cols))
+				{
+					// the line has left the side of the area, keep following it along the edge column
+					continue;
+				}
+				col += stepCol;
+			}
+			else
+			{
+				tMaxY += tDeltaY;
+				if ((row + stepRow < 0) || (row + stepRow >= rows))
+				{
+					continue;
+				}
+				row += stepRow;
+			}
+			cells[count++] = row*cols+col;
+		}
+		return (count);
+	}
+	
+	// get one of the sprites found by the last query
+	@SuppressWarnings("unchecked")
+	public T getResult(int index)
+	{
+		return ((T)sprites[results[index]]);
+	}
+	
+	// convert an x coordinate into a column, clamped to the grid
+	// sprites that hang off the edge of the area are kept in the edge cells
+	private int toCol(double x)
+	{
+		int col = (int)Math.floor((x-originX)/cellSize);
+		if (col < 0)
+		{
+			return (0);
+		}
+		if (col >= cols)
+		{
+			return (cols-1);
+		}
+		return (col);
+	}
+	
+	// convert a y coordinate into a row, clamped to the grid
+	private int toRow(double y)
+	{
+		int row = (int)Math.floor((y-originY)/cellSize);
+		if (row < 0)
+		{
+			return (0);
+		}
+		if (row >= rows)
+		{
+			return (rows-1);
+		}
+		return (row);
+	}
+	
+	private void addResult(int item)
+	{
+		int[] bigger;
+		
+		if (resultCount == results.length)
+		{
+			bigger = new int[results.length*2];
+			System.arraycopy(results, 0, bigger, 0, resultCount);
+			results = bigger;
+		}
+		results[resultCount++] = item;
+	}
+	
+	private void growSprites()
+	{
+		int newCap = sprites.length*2;
+		Object[] newSprites = new Object[newCap];
+		
+		System.arraycopy(sprites, 0, newSprites, 0, count);
+		sprites = newSprites;
+		minCol = grow(minCol, newCap);
+		minRow = grow(minRow, newCap);
+		maxCol = grow(maxCol, newCap);
+		maxRow = grow(maxRow, newCap);
+		stamp = grow(stamp, newCap);
+	}
+	
+	private int[] grow(int[] array, int newCap)
+	{
+		int[] bigger = new int[newCap];
+		System.arraycopy(array, 0, bigger, 0, count);
+		return (bigger);
+	}
+}
@@ -0,0 +1,192 @@
+package cs4300;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Stroke;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.IdentityHashMap;
+
+// pre-drawn images of the sprites at a fixed number of rotations and health tints
+// drawing an antialiased outline is slow in the software pipeline, so when the atlas
+// is turned on sprites are drawn by copying the nearest image instead
+// the images for the sprites the game uses are drawn by prewarm before play starts,
+// any others are drawn the first time they are needed, and all of them are kept
+// sprites that are shrinking (enemies in their death-spiral) and lasers are still drawn
+// from their outlines, since they can't be matched to a fixed image
+public class SpriteAtlas
+{
+	public static final int DEF_ROTATIONS = 64;
+	public static final int DEF_TINTS = 8;
+	public static final float DEF_SCALE = 1.0f;
+	private static final int MARGIN = 2;		// extra pixels around each image for antialiasing
+	
+	// the images for one shape
+	private class Entry
+	{
+		BufferedImage[][] images;	// indexed by tint, then rotation
+		float half;					// half the width of each image, in sprite units
+	}
+	
+	private int numRotations;
+	private int numTints;
+	private float scale;			// pixels per sprite unit in the images
+	private IdentityHashMap<SpriteShape, Entry> entries;
+	private int imageCount;
+	
+	public int getNumRotations() { return (numRotations); }
+	public int getNumTints() { return (numTints); }
+	public float getScale() { return (scale); }
+	public int getImageCount() { return (imageCount); }
+	
+	// create an atlas with the passed in number of rotations and health tints per shape
+	// scale sets the resolution of the images, 1 matches the screen
+	public SpriteAtlas(int numRotations, int numTints, float scale)
+	{
+		this.numRotations = Math.max(numRotations, 1);
+		this.numTints = Math.max(numTints, 2);
+		this.scale = (scale > 0) ? scale : DEF_SCALE;
+		entries = new IdentityHashMap<SpriteShape, Entry>();
+		imageCount = 0;
+	}
+	
+	// draw the sprite at the position and rotation it was last set up to be drawn at
+	// returns false if the sprite can't be drawn from the atlas,
+	// in which case it should be drawn from its outline
+	public boolean draw(Graphics2D g2d, CgsSprite spr)
+	{
+		Entry entry;
+		BufferedImage img;
+		int rotIndex, tintIndex;
+		double x, y;
+		
+		if (spr.useAtlas() == false)
+		{
+			return (false);
+		}
+		
+		entry = getEntry(spr);
+		
+		// pick the closest rotation and tint
+		rotIndex = (int)Math.round(spr.drawRot/(2*Math.PI)*numRotations) % numRotations;
+		if (rotIndex < 0)
+		{
+			rotIndex += numRotations;
+		}
+		tintIndex = spr.getTintIndex(numTints);
+		
+		img = entry.images[tintIndex][rotIndex];
+		if (img == null)
+		{
+			// it wasn't drawn ahead of time
+			img = createImage(g2d.getDeviceConfiguration(), spr, entry.half, tintIndex, rotIndex);
+			entry.images[tintIndex][rotIndex] = img;
+		}
+		
+		x = spr.drawXPos - entry.half;
+		y = spr.drawYPos - entry.half;
+		if (scale == 1)
+		{
+			g2d.drawImage(img, (int)Math.round(x), (int)Math.round(y), null);
+		}
+		else
+		{
+			g2d.drawImage(img, (int)Math.round(x), (int)Math.round(y),
+						  Math.round(entry.half*2), Math.round(entry.half*2), null);
+		}
+		return (true);
+	}
+	
+	// draw every image the sprite can be drawn from, at each rotation and each tint it uses,
+	// so that the first frame a sprite like it is seen in doesn't stall while they are drawn
+	// images that have already been drawn are kept, so this is cheap to call again
+	public void prewarm(GraphicsConfiguration gc, CgsSprite spr)
+	{
+		Entry entry;
+		
+		if (spr.useAtlas() == false)
+		{
+			return;
+		}
+		
+		entry = getEntry(spr);
+		for (int tintIndex = 0; tintIndex < Math.min(spr.getTintCount(numTints), numTints); tintIndex++)
+		{
+			for (int rotIndex = 0; rotIndex < numRotations; rotIndex++)
+			{
+				if (entry.images[tintIndex][rotIndex] == null)
+				{
+					entry.images[tintIndex][rotIndex] = createImage(gc, spr, entry.half, tintIndex, rotIndex);
+				}
+			}
+		}
+	}
+	
+	// forget all of the images, they will be drawn again as they are needed
+	public void clear()
+	{
+		entries.clear();
+		imageCount = 0;
+	}
+	
+	// get the images for the sprite's shape, making room for them if there aren't any yet
+	private Entry getEntry(CgsSprite spr)
+	{
+		Entry entry = entries.get(spr.shape);
+		
+		if (entry == null)
+		{
+			entry = new Entry();
+			entry.images = new BufferedImage[numTints][numRotations];
+			entry.half = (float)(spr.shape.getRadius() + lineWidth(spr.lineStroke)/2 + MARGIN);
+			entries.put(spr.shape, entry);
+		}
+		return (entry);
+	}
+	
+	// draw the sprite's outline into a new image at one of the atlas's rotations and tints
+	// the image is made to match the passed in configuration so it can be copied quickly
+	private BufferedImage createImage(GraphicsConfiguration gc, CgsSprite spr, float half, int tintIndex, int rotIndex)
+	{
+		int size = (int)Math.ceil(half*2*scale);
+		BufferedImage img;
+		Graphics2D imgG2d;
+		
+		img = gc.createCompatibleImage(size, size, Transparency.TRANSLUCENT);
+		imgG2d = img.createGraphics();
+		imgG2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		imgG2d.scale(scale, scale);
+		imgG2d.translate(half, half);
+		imgG2d.rotate(2*Math.PI*rotIndex/numRotations);
+		
+		// draw it the same way CgsSprite.draw does
+		imgG2d.setStroke(spr.lineStroke);
+		imgG2d.setColor(spr.lineColor);
+		imgG2d.draw(spr.shape.getPath());
+		imgG2d.setColor(spr.getTintColor(tintIndex, numTints));
+		imgG2d.fill(spr.shape.getPath());
+		imgG2d.dispose();
+		
+		imageCount++;
+		return (img);
+	}
+	
+	// the width of a stroke, used to leave room for the outline
+	private static float lineWidth(Stroke stroke)
+	{
+		if (stroke instanceof BasicStroke)
+		{
+			return (((BasicStroke)stroke).getLineWidth());
+		}
+		return (0);
+	}
+	
+	// the tint color used by sprites that change from green to red as they take damage
+	public static Color healthTint(int tintIndex, int numTints)
+	{
+		return (RenderCache.getHealthColor((float)tintIndex/(numTints-1)));
+	}
+}
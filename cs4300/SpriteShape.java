@@ -0,0 +1,572 @@
+package cs4300;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Line2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+
+// the outline of a type of sprite, shared by every sprite of that type
+// two copies of the outline are kept:
+// the path's segments are copied into plain arrays so that the outline can be drawn
+// by writing into a path that the sprite already owns, rather than cloning a new one,
+// and the outline is flattened once into polygons (curves are replaced by short lines)
+// so that collision checks only ever work on arrays of points
+// the polygons are also split into convex pieces, which is what the collision checks test
+public class SpriteShape
+{
+	private static final double FLATNESS = 0.25;	// how far the flattened lines may stray from a curve
+	private static final double EPSILON = 1e-9;
+	
+	private GeneralPath path;
+	private Rectangle2D bounds;
+	private double radius;
+	private int[] segTypes;		// the PathIterator type of each segment
+	private float[] coords;		// the points of each segment, packed one after another
+	private int numCoords;
+	
+	// the flattened outline
+	// contour k is made up of the points from contourStart[k] to contourStart[k+1]
+	// contours with three or more points are closed, shorter ones are just a point or a line
+	private float[] verts;		// x and y of each point, packed one after another
+	private int numVerts;
+	private int[] contourStart;
+	
+	// the convex pieces of the flattened outline
+	// piece k is made up of the points numbered pieceIndex[pieceStart[k]] to pieceIndex[pieceStart[k+1]-1],
+	// in the same order around the piece as the outline goes
+	private int[] pieceStart;
+	private int[] pieceIndex;
+	
+	public GeneralPath getPath() { return (path); }
+	public Rectangle2D getBounds() { return (bounds); }
+	public double getRadius() { return (radius); }
+	public int getNumCoords() { return (numCoords); }
+	public int getNumVerts() { return (numVerts); }
+	public int getNumPieces() { return (pieceStart.length-1); }
+	public int[] getPieceStart() { return (pieceStart); }
+	public int[] getPieceIndex() { return (pieceIndex); }
+	
+	// create a shape from an outline, which should not be changed afterwards
+	public SpriteShape(GeneralPath path)
+	{
+		this.path = path;
+		copySegments();
+		flatten();
+		findBounds();
+		splitIntoPieces();
+	}
+	
+	// copy the path's segments into segTypes and coords
+	private void copySegments()
+	{
+		PathIterator pit;
+		float[] segCoords = new float[6];
+		int numSegs = 0;
+		int type;
+		
+		// count the segments and points so the arrays can be sized exactly
+		numCoords = 0;
+		for (pit = path.getPathIterator(null); pit.isDone() == false; pit.next())
+		{
+			numCoords += pointsIn(pit.currentSegment(segCoords))*2;
+			numSegs++;
+		}
+		
+		segTypes = new int[numSegs];
+		coords = new float[numCoords];
+		numSegs = 0;
+		numCoords = 0;
+		for (pit = path.getPathIterator(null); pit.isDone() == false; pit.next())
+		{
+			type = pit.currentSegment(segCoords);
+			segTypes[numSegs++] = type;
+			for (int i = 0; i < pointsIn(type)*2; i++)
+			{
+				coords[numCoords++] = segCoords[i];
+			}
+		}
+	}
+	
+	// flatten the path into contours of points
+	// a contour that ends back where it started doesn't repeat its first point
+	private void flatten()
+	{
+		PathIterator pit;
+		float[] segCoords = new float[6];
+		ArrayList<Float> points = new ArrayList<Float>();
+		ArrayList<Integer> starts = new ArrayList<Integer>();
+		int type;
+		
+		for (pit = path.getPathIterator(null, FLATNESS); pit.isDone() == false; pit.next())
+		{
+			type = pit.currentSegment(segCoords);
+			if ((type == PathIterator.SEG_MOVETO) || (type == PathIterator.SEG_CLOSE))
+			{
+				endContour(points, starts);
+				starts.add(points.size()/2);
+			}
+			if (type != PathIterator.SEG_CLOSE)
+			{
+				points.add(segCoords[0]);
+				points.add(segCoords[1]);
+			}
+		}
+		endContour(points, starts);
+		starts.add(points.size()/2);
+		
+		// drop the empty contours
+		numVerts = points.size()/2;
+		verts = new float[numVerts*2];
+		for (int i = 0; i < verts.length; i++)
+		{
+			verts[i] = points.get(i);
+		}
+		for (int i = starts.size()-1; i > 0; i--)
+		{
+			if (starts.get(i).equals(starts.get(i-1)) == true)
+			{
+				starts.remove(i);
+			}
+		}
+		contourStart = new int[starts.size()];
+		for (int i = 0; i < contourStart.length; i++)
+		{
+			contourStart[i] = starts.get(i);
+		}
+	}
+	
+	// finish off the contour that is being flattened
+	// if it ends on the point it started at, that last point is dropped
+	private static void endContour(ArrayList<Float> points, ArrayList<Integer> starts)
+	{
+		int first, last;
+		
+		if (starts.isEmpty() == true)
+		{
+			return;
+		}
+		first = starts.get(starts.size()-1)*2;
+		last = points.size()-2;
+		if ((last > first) && (points.get(first).equals(points.get(last)) == true) &&
+			(points.get(first+1).equals(points.get(last+1)) == true))
+		{
+			points.remove(last+1);
+			points.remove(last);
+		}
+	}
+	
+	// find the bounding box and bounding radius of the flattened outline
+	private void findBounds()
+	{
+		double minX = 0, minY = 0, maxX = 0, maxY = 0;
+		
+		radius = 0;
+		for (int i = 0; i < numVerts; i++)
+		{
+			if (i == 0)
+			{
+				minX = maxX = verts[0];
+				minY = maxY = verts[1];
+			}
+			minX = Math.min(minX, verts[i*2]);
+			minY = Math.min(minY, verts[i*2+1]);
+			maxX = Math.max(maxX, verts[i*2]);
+			maxY = Math.max(maxY, verts[i*2+1]);
+			radius = Math.max(radius, Math.hypot(verts[i*2], verts[i*2+1]));
+		}
+		bounds = new Rectangle2D.Double(minX, minY, maxX-minX, maxY-minY);
+	}
+	
+	// split each contour into convex pieces
+	// closed contours are cut into triangles by ear clipping, then neighbouring
+	// pieces are merged back together wherever the result is still convex
+	// points and lines are pieces on their own
+	private void splitIntoPieces()
+	{
+		ArrayList<int[]> pieces = new ArrayList<int[]>();
+		ArrayList<int[]> contourPieces;
+		int[] piece;
+		int count = 0;
+		
+		for (int k = 0; k < contourStart.length-1; k++)
+		{
+			if ((contourStart[k+1] - contourStart[k] < 3) ||
+				(Math.abs(signedArea(contourStart[k], contourStart[k+1])) < EPSILON))
+			{
+				piece = new int[contourStart[k+1] - contourStart[k]];
+				for (int i = 0; i < piece.length; i++)
+				{
+					piece[i] = contourStart[k] + i;
+				}
+				pieces.add(piece);
+				continue;
+			}
+			contourPieces = triangulate(contourStart[k], contourStart[k+1]);
+			mergePieces(contourPieces, signedArea(contourStart[k], contourStart[k+1]) > 0);
+			pieces.addAll(contourPieces);
+		}
+		
+		pieceStart = new int[pieces.size()+1];
+		for (int k = 0; k < pieces.size(); k++)
+		{
+			pieceStart[k] = count;
+			count += pieces.get(k).length;
+		}
+		pieceStart[pieces.size()] = count;
+		pieceIndex = new int[count];
+		for (int k = 0; k < pieces.size(); k++)
+		{
+			System.arraycopy(pieces.get(k), 0, pieceIndex, pieceStart[k], pieces.get(k).length);
+		}
+	}
+	
+	// twice the signed area of the polygon made of the points from start to end
+	// positive if the points go counter clockwise in the usual math sense
+	private double signedArea(int start, int end)
+	{
+		double area = 0;
+		int j;
+		
+		for (int i = start; i < end; i++)
+		{
+			j = (i+1 < end) ? i+1 : start;
+			area += (double)verts[i*2]*verts[j*2+1] - (double)verts[j*2]*verts[i*2+1];
+		}
+		return (area);
+	}
+	
+	// which way the path from point a to b to c turns, scaled by the lengths involved
+	// has the same sign as signedArea when the turn goes the same way as the outline
+	private double turn(int a, int b, int c)
+	{
+		return (((double)verts[b*2]-verts[a*2])*((double)verts[c*2+1]-verts[a*2+1]) -
+				((double)verts[b*2+1]-verts[a*2+1])*((double)verts[c*2]-verts[a*2]));
+	}
+	
+	// cut the closed contour made of the points from start to end into triangles
+	// an ear is a corner that turns the same way as the outline with no other point inside it,
+	// cutting one off leaves a smaller polygon, until only one triangle is left
+	private ArrayList<int[]> triangulate(int start, int end)
+	{
+		ArrayList<int[]> triangles = new ArrayList<int[]>();
+		ArrayList<Integer> left = new ArrayList<Integer>();
+		double sign = (signedArea(start, end) > 0) ? 1 : -1;
+		int n, a, b, c;
+		boolean found;
+		
+		for (int i = start; i < end; i++)
+		{
+			left.add(i);
+		}
+		
+		while (left.size() > 3)
+		{
+			n = left.size();
+			found = false;
+			for (int i = 0; i < n; i++)
+			{
+				a = left.get((i+n-1) % n);
+				b = left.get(i);
+				c = left.get((i+1) % n);
+				if ((turn(a, b, c)*sign > EPSILON) && (anyPointInside(left, a, b, c, sign) == false))
+				{
+					triangles.add(new int[] { a, b, c });
+					left.remove(i);
+					found = true;
+					break;
+				}
+			}
+			if (found == false)
+			{
+				// only straight or backwards corners are left, which happens when
+				// points line up, so drop a point that adds no area
+				for (int i = 0; i < n; i++)
+				{
+					if (Math.abs(turn(left.get((i+n-1) % n), left.get(i), left.get((i+1) % n))) <= EPSILON)
+					{
+						left.remove(i);
+						found = true;
+						break;
+					}
+				}
+			}
+			if (found == false)
+			{
+				// the outline crosses itself, give up and keep what is left as one piece
+				break;
+			}
+		}
+		
+		n = left.size();
+		if ((n == 3) && (Math.abs(turn(left.get(0), left.get(1), left.get(2))) <= EPSILON))
+		{
+			// the last triangle is flat
+			return (triangles);
+		}
+		triangles.add(toArray(left));
+		return (triangles);
+	}
+	
+	// whether any of the remaining points lies inside or on the triangle a, b, c
+	private boolean anyPointInside(ArrayList<Integer> left, int a, int b, int c, double sign)
+	{
+		int p;
+		
+		for (int i = 0; i < left.size(); i++)
+		{
+			p = left.get(i);
+			if ((p == a) || (p == b) || (p == c))
+			{
+				continue;
+			}
+			if ((turn(a, b, p)*sign >= 0) && (turn(b, c, p)*sign >= 0) && (turn(c, a, p)*sign >= 0))
+			{
+				return (true);
+			}
+		}
+		return (false);
+	}
+	
+	// join pieces that share an edge wherever the joined piece is still convex
+	// ccw is the direction the contour goes around, which every piece shares
+	private void mergePieces(ArrayList<int[]> pieces, boolean ccw)
+	{
+		int[] merged;
+		boolean changed = true;
+		
+		while (changed == true)
+		{
+			changed = false;
+			for (int i = 0; (i < pieces.size()) && (changed == false); i++)
+			{
+				for (int j = i+1; (j < pieces.size()) && (changed == false); j++)
+				{
+					merged = join(pieces.get(i), pieces.get(j));
+					if ((merged != null) && (isConvex(merged, ccw) == true))
+					{
+						pieces.set(i, merged);
+						pieces.remove(j);
+						changed = true;
+					}
+				}
+			}
+		}
+	}
+	
+	// join two pieces along an edge they share, or return null if they don't share one
+	// pieces going the same way around share an edge when one has it from a to b and the other from b to a
+	private static int[] join(int[] p, int[] q)
+	{
+		int[] merged;
+		int n = p.length, m = q.length;
+		int c = 0;
+		
+		for (int i = 0; i < n; i++)
+		{
+			for (int j = 0; j < m; j++)
+			{
+				if ((p[i] == q[(j+1) % m]) && (p[(i+1) % n] == q[j]))
+				{
+					// go around p starting after the shared edge, then around q skipping the shared points
+					merged = new int[n+m-2];
+					for (int k = 1; k <= n; k++)
+					{
+						merged[c++] = p[(i+k) % n];
+					}
+					for (int k = 2; k < m; k++)
+					{
+						merged[c++] = q[(j+k) % m];
+					}
+					return (merged);
+				}
+			}
+		}
+		return (null);
+	}
+	
+	// whether every corner of the piece turns the same way as the contour (straight corners are allowed)
+	private boolean isConvex(int[] piece, boolean ccw)
+	{
+		int n = piece.length;
+		double sign = (ccw == true) ? 1 : -1;
+		
+		for (int i = 0; i < n; i++)
+		{
+			if (turn(piece[i], piece[(i+1) % n], piece[(i+2) % n])*sign < -EPSILON)
+			{
+				return (false);
+			}
+		}
+		return (true);
+	}
+	
+	private static int[] toArray(ArrayList<Integer> list)
+	{
+		int[] array = new int[list.size()];
+		
+		for (int i = 0; i < array.length; i++)
+		{
+			array[i] = list.get(i);
+		}
+		return (array);
+	}
+	
+	// write the flattened outline moved by the passed in transform into vertBuf,
+	// which must hold at least getNumVerts()*2 floats
+	public void transformVerts(AffineTransform at, float[] vertBuf)
+	{
+		at.transform(verts, 0, vertBuf, 0, numVerts);
+	}
+	
+	// copy the points of each convex piece out of vertBuf into pieceBuf, one piece after another,
+	// so that point pieceIndex[i] ends up at pieceBuf[i*2], pieceBuf[i*2+1]
+	// pieceBuf must hold at least getPieceIndex().length*2 floats
+	// also write the bounding box and center of each piece into boundsBuf, which must hold
+	// at least getNumPieces()*6 floats, as min x, min y, max x, max y, center x, center y
+	// the center is the average of the piece's points, so it is inside any piece with area
+	// vertBuf holds the outline after being moved into place by transformVerts
+	public void findPieces(float[] vertBuf, float[] pieceBuf, float[] boundsBuf)
+	{
+		float x, y, totalX, totalY;
+		int v;
+		
+		for (int k = 0; k < pieceStart.length-1; k++)
+		{
+			v = pieceIndex[pieceStart[k]];
+			boundsBuf[k*6] = boundsBuf[k*6+2] = totalX = pieceBuf[pieceStart[k]*2] = vertBuf[v*2];
+			boundsBuf[k*6+1] = boundsBuf[k*6+3] = totalY = pieceBuf[pieceStart[k]*2+1] = vertBuf[v*2+1];
+			for (int i = pieceStart[k]+1; i < pieceStart[k+1]; i++)
+			{
+				v = pieceIndex[i];
+				x = pieceBuf[i*2] = vertBuf[v*2];
+				y = pieceBuf[i*2+1] = vertBuf[v*2+1];
+				boundsBuf[k*6] = Math.min(boundsBuf[k*6], x);
+				boundsBuf[k*6+1] = Math.min(boundsBuf[k*6+1], y);
+				boundsBuf[k*6+2] = Math.max(boundsBuf[k*6+2], x);
+				boundsBuf[k*6+3] = Math.max(boundsBuf[k*6+3], y);
+				totalX += x;
+				totalY += y;
+			}
+			boundsBuf[k*6+4] = totalX/(pieceStart[k+1] - pieceStart[k]);
+			boundsBuf[k*6+5] = totalY/(pieceStart[k+1] - pieceStart[k]);
+		}
+	}
+	
+	// replace the contents of dest with this shape moved by the passed in transform
+	// coordBuf is scratch space of at least getNumCoords() floats
+	// once dest has grown to fit the shape this doesn't allocate anything
+	public void transformInto(AffineTransform at, float[] coordBuf, GeneralPath dest)
+	{
+		int c = 0;
+		
+		at.transform(coords, 0, coordBuf, 0, numCoords/2);
+		
+		dest.reset();
+		for (int i = 0; i < segTypes.length; i++)
+		{
+			switch (segTypes[i])
+			{
+			case PathIterator.SEG_MOVETO:
+				dest.moveTo(coordBuf[c], coordBuf[c+1]);
+				break;
+			case PathIterator.SEG_LINETO:
+				dest.lineTo(coordBuf[c], coordBuf[c+1]);
+				break;
+			case PathIterator.SEG_QUADTO:
+				dest.quadTo(coordBuf[c], coordBuf[c+1], coordBuf[c+2], coordBuf[c+3]);
+				break;
+			case PathIterator.SEG_CUBICTO:
+				dest.curveTo(coordBuf[c], coordBuf[c+1], coordBuf[c+2], coordBuf[c+3],
+							 coordBuf[c+4], coordBuf[c+5]);
+				break;
+			case PathIterator.SEG_CLOSE:
+				dest.closePath();
+				break;
+			default:
+				break;
+			}
+			c += pointsIn(segTypes[i])*2;
+		}
+	}
+	
+	// check if the point (x, y) is inside the flattened outline
+	// vertBuf holds the outline after being moved into place by transformVerts
+	// a point is inside if a line from it crosses the outline an odd number of times
+	public boolean contains(float[] vertBuf, double x, double y)
+	{
+		boolean inside = false;
+		int start, end, j;
+		double xi, yi, xj, yj;
+		
+		for (int k = 0; k < contourStart.length-1; k++)
+		{
+			start = contourStart[k];
+			end = contourStart[k+1];
+			if (end - start < 3)
+			{
+				// points and lines have nothing inside them
+				continue;
+			}
+			for (int i = start; i < end; i++)
+			{
+				j = (i > start) ? i-1 : end-1;
+				xi = vertBuf[i*2];
+				yi = vertBuf[i*2+1];
+				xj = vertBuf[j*2];
+				yj = vertBuf[j*2+1];
+				if (((yi > y) != (yj > y)) && (x < (xj - xi)*(y - yi)/(yj - yi) + xi))
+				{
+					inside = !inside;
+				}
+			}
+		}
+		return (inside);
+	}
+	
+	// check if the line segment from (x0, y0) to (x1, y1) crosses the flattened outline
+	// vertBuf holds the outline after being moved into place by transformVerts
+	public boolean crossesSegment(float[] vertBuf, double x0, double y0, double x1, double y1)
+	{
+		int start, end, j;
+		
+		for (int k = 0; k < contourStart.length-1; k++)
+		{
+			start = contourStart[k];
+			end = contourStart[k+1];
+			for (int i = start; i < end; i++)
+			{
+				if ((i+1 == end) && (end - start < 3))
+				{
+					// lines and points aren't closed back to their start
+					break;
+				}
+				j = (i+1 < end) ? i+1 : start;
+				if (Line2D.linesIntersect(x0, y0, x1, y1, vertBuf[i*2], vertBuf[i*2+1],
+										 vertBuf[j*2], vertBuf[j*2+1]) == true)
+				{
+					return (true);
+				}
+			}
+		}
+		return (false);
+	}
+	
+	// the number of points that make up a segment of the passed in type
+	private static int pointsIn(int segType)
+	{
+		switch (segType)
+		{
+		case PathIterator.SEG_MOVETO:
+		case PathIterator.SEG_LINETO:
+			return (1);
+		case PathIterator.SEG_QUADTO:
+			return (2);
+		case PathIterator.SEG_CUBICTO:
+			return (3);
+		default:
+			return (0);
+		}
+	}
+}
@@ -1,15 +1,31 @@
 package cs4300;
 
 import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import java.awt.geom.Rectangle2D;
 
 // a menu item used to display text
+// the text can change as often as every frame (the score), so the item lays out its own text
+// instead of going through the shared cache, which would fill up with strings that are never drawn again
 public class TextItem extends MenuItem
 {
 	private String text;
 	private int textSize;
 	private boolean hasOutline;
+	private TextLayout layout;					// the laid out text, or null until it is next drawn
+	private FontRenderContext layoutContext;	// the context the layout was made for
 	
-	public void setText(String newText) { text = newText; }
+	// change the text, the item is only drawn again if it is different
+	public void setText(String newText)
+	{
+		if (text.equals(newText) == false)
+		{
+			text = newText;
+			layout = null;
+			markChanged();
+		}
+	}
 	
 	// create a new TextItem
 	// a blank text item with no outline can be used as a spacer
@@ -19,6 +35,7 @@ public class TextItem extends MenuItem
 		this.hasOutline = hasOutline;
 		this.text = text;
 		this.textSize = textSize;
+		layout = null;
 	}
 	
 	@Override
@@ -33,8 +50,33 @@ public class TextItem extends MenuItem
 		if (text.compareTo("") != 0)
 		{
 			// dont draw the text if there is none
-			Menu.drawText(g2d, text, textSize, style.colors.textColor, (float)outline.getCenterX(), (float)outline.getCenterY());
+			Menu.drawLayout(g2d, getLayout(g2d.getFontRenderContext()), style.colors.textColor,
+							(float)outline.getCenterX(), (float)outline.getCenterY());
+		}
+	}
+	
+	@Override
+	protected Rectangle2D getDrawBounds(Graphics2D g2d, MenuStyle style)
+	{
+		Rectangle2D bounds = super.getDrawBounds(g2d, style);
+		
+		if (text.compareTo("") != 0)
+		{
+			bounds.add(Menu.getTextBounds(getLayout(g2d.getFontRenderContext()),
+										  (float)outline.getCenterX(), (float)outline.getCenterY()));
+		}
+		return (bounds);
+	}
+	
+	// lay the text out the first time it is needed after it changes
+	private TextLayout getLayout(FontRenderContext frc)
+	{
+		if ((layout == null) || (layoutContext.equals(frc) == false))
+		{
+			layout = new TextLayout(text, RenderCache.getFont(textSize), frc);
+			layoutContext = frc;
 		}
+		return (layout);
 	}
 	
 	@Override
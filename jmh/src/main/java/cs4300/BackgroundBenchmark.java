@@ -0,0 +1,69 @@
+package cs4300;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// drawing the scrolling background over a whole window, by filling it with the gradient
+// every frame or by copying the cached strip across it
+// the background scrolls a tick between frames so the strip is copied at a different offset each time
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class BackgroundBenchmark
+{
+	private static final long TICK_MILLIS = 10;
+	
+	@Param({"filled", "cached"})
+	public String mode;
+	
+	private ScrollingBackground background;
+	private Dimension winSize;
+	private Graphics2D g2d;
+	
+	@Setup
+	public void setUp()
+	{
+		BufferedImage img = new BufferedImage(Simulation.WIN_WIDTH, Simulation.WIN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		ColorScheme colors = new ColorScheme(Color.BLACK, Color.GRAY, Color.GRAY, Color.BLUE, Color.RED, Color.WHITE);
+		
+		g2d = img.createGraphics();
+		g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		winSize = new Dimension(Simulation.WIN_WIDTH, Simulation.WIN_HEIGHT);
+		background = new ScrollingBackground(colors);
+		background.setCached(mode.equals("cached"));
+	}
+	
+	@TearDown
+	public void tearDown()
+	{
+		g2d.dispose();
+	}
+	
+	@Benchmark
+	public void draw()
+	{
+		background.savePrevState();
+		background.update(TICK_MILLIS);
+		background.draw(g2d, winSize, 0.5);
+	}
+}
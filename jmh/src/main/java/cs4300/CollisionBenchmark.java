@@ -0,0 +1,84 @@
+package cs4300;
+
+import java.awt.Rectangle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cs4300.Enemy.EnemyType;
+
+// the player's outline checked against an enemy's
+// a hit can stop at the first overlap found, a near miss has
+// overlapping bounds but no touching outlines, so everything is checked
+// the separating axis test is timed with and without finding the contact,
+// and against the old check of the player's points inside the enemy
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CollisionBenchmark
+{
+	@Param({"TYPE1", "TYPE2"})
+	public EnemyType type;
+	
+	@Param({"true", "false"})
+	public boolean hit;
+	
+	private Player player;
+	private Enemy enemy;
+	private Narrowphase.Contact contact;
+	
+	@Setup
+	public void setUp()
+	{
+		Rectangle playArea = Simulation.createPlayArea();
+		double offset;
+		
+		contact = new Narrowphase.Contact();
+		enemy = new Enemy(type, playArea, 960, 600);
+		enemy.updateTransform();
+		player = new Player(playArea, 960, 600);
+		player.updateTransform();
+		if (hit == false)
+		{
+			// slide the player away until the outlines just stop touching
+			offset = 0;
+			while (player.checkCollision(enemy) == true)
+			{
+				offset += 1;
+				player.relocate(960-offset, 600-offset);
+				player.updateTransform();
+			}
+		}
+	}
+	
+	@Benchmark
+	public boolean sat()
+	{
+		return (player.checkCollision(enemy));
+	}
+	
+	@Benchmark
+	public boolean contact()
+	{
+		return (player.checkCollision(enemy, contact));
+	}
+	
+	@Benchmark
+	public boolean points()
+	{
+		return (player.checkCollisionByPoints(enemy));
+	}
+}
@@ -0,0 +1,79 @@
+package cs4300;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cs4300.Enemy.EnemyType;
+
+// drawing an enemy into an offscreen image, from its outline or from an atlas
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DrawBenchmark
+{
+	private static final long SEED = 4300;
+	
+	@Param({"TYPE1", "TYPE2"})
+	public EnemyType type;
+	
+	@Param({"vector", "atlas"})
+	public String mode;
+	
+	private Enemy enemy;
+	private SpriteAtlas atlas;
+	private Graphics2D g2d;
+	
+	@Setup
+	public void setUp()
+	{
+		BufferedImage img = new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB);
+		
+		g2d = img.createGraphics();
+		g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		atlas = null;
+		if (mode.equals("atlas") == true)
+		{
+			atlas = new SpriteAtlas(SpriteAtlas.DEF_ROTATIONS, SpriteAtlas.DEF_TINTS, SpriteAtlas.DEF_SCALE);
+		}
+		enemy = new Enemy(type, Simulation.createPlayArea(), 128, 128);
+		enemy.setFxRandom(new SplittableRandom(SEED));
+		enemy.savePrevState();
+		enemy.updateTransform();
+		if (atlas != null)
+		{
+			// the images are drawn before timing starts, as they are in the game
+			atlas.prewarm(g2d.getDeviceConfiguration(), enemy);
+		}
+	}
+	
+	@TearDown
+	public void tearDown()
+	{
+		g2d.dispose();
+	}
+	
+	@Benchmark
+	public void enemy()
+	{
+		enemy.draw(g2d, 0.5, atlas);
+	}
+}
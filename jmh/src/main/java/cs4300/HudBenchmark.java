@@ -0,0 +1,75 @@
+package cs4300;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cs4300.Menu.MenuAction;
+import cs4300.MenuStyle.LayoutType;
+
+// drawing a menu bar like the in-game one, with the score staying the same or changing every frame
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class HudBenchmark
+{
+	private Menu menu;
+	private TextItem score;
+	private int frame;
+	private Graphics2D g2d;
+	
+	@Setup
+	public void setUp()
+	{
+		BufferedImage img = new BufferedImage(800, 60, BufferedImage.TYPE_INT_RGB);
+		ColorScheme colors = new ColorScheme(Color.BLACK, Color.BLACK, Color.GRAY, Color.BLUE, Color.RED, Color.WHITE);
+		
+		g2d = img.createGraphics();
+		g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		menu = new Menu("", 400, 30, 800, 60, new MenuStyle(LayoutType.LAYOUT_HORIZONTAL, colors, 5));
+		menu.add(new Button("Rapid", MenuAction.GM_RAPID, 80, 42));
+		menu.add(new Button("Spread", MenuAction.GM_SPREAD, 80, 42));
+		menu.add(new Button("Laser", MenuAction.GM_LASER, 80, 42));
+		score = new TextItem("SCORE: 0", 32, false, 0, 0);
+		menu.add(score);
+		menu.add(new Button("Pause", MenuAction.GM_PAUSE, 80, 42));
+		frame = 0;
+	}
+	
+	@TearDown
+	public void tearDown()
+	{
+		g2d.dispose();
+	}
+	
+	@Benchmark
+	public void hud()
+	{
+		menu.draw(g2d);
+	}
+	
+	// a new score every frame, the way it climbs during a game
+	@Benchmark
+	public void hudScore()
+	{
+		score.setText("SCORE: " + (++frame));
+		menu.draw(g2d);
+	}
+}
@@ -0,0 +1,71 @@
+package cs4300;
+
+import java.awt.Rectangle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cs4300.CgsSprite.WeaponType;
+import cs4300.Enemy.EnemyType;
+
+// a laser checked against an enemy it either passes through or just misses,
+// or against another laser on the same line that starts just past where it ends
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class LaserBenchmark
+{
+	@Param({"hit", "miss", "collinear"})
+	public String aim;
+	
+	private Projectile laser;
+	private CgsSprite target;
+	
+	@Setup
+	public void setUp()
+	{
+		Rectangle playArea = Simulation.createPlayArea();
+		Enemy enemy;
+		
+		if (aim.equals("collinear") == true)
+		{
+			// the first beam is stopped at x = 800, the second starts a little further along
+			laser = new Projectile(WeaponType.LASER, new Rectangle(0, 0, 800, playArea.height), 400, 900, Math.PI/4, null);
+			target = new Projectile(WeaponType.LASER, playArea, 810, 490, Math.PI/4, null);
+		}
+		else
+		{
+			// aim through the enemy's center, or past its edge
+			enemy = new Enemy(EnemyType.TYPE2, playArea, 1200, 600);
+			enemy.updateTransform();
+			laser = new Projectile(WeaponType.LASER, playArea, 400, 600,
+								   Math.atan2((aim.equals("hit") ? 0 : enemy.getBoundRadius()*1.5), 1200-400) + Math.PI/2, null);
+			target = enemy;
+		}
+		laser.updateTransform();
+		target.updateTransform();
+		if ((aim.equals("collinear") == true) && (laser.checkCollision(target) == true))
+		{
+			throw new IllegalStateException("lines end to end were found touching");
+		}
+	}
+	
+	@Benchmark
+	public boolean check()
+	{
+		return (laser.checkCollision(target));
+	}
+}
@@ -0,0 +1,81 @@
+package cs4300;
+
+import java.awt.Rectangle;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cs4300.CgsSprite.WeaponType;
+import cs4300.Enemy.EnemyType;
+
+// a whole world tick with the player firing and the passed in number of enemies in play
+// enemies that leave or are destroyed are replaced after each tick
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class TickBenchmark
+{
+	private static final long TICK_MILLIS = 10;
+	private static final long SEED = 4300;
+	
+	@Param({"10", "100", "1000", "10000"})
+	public int enemies;
+	
+	private Rectangle playArea;
+	private GameWorld world;
+	private ScriptedInput script;
+	private PlayerInput input;
+	private SplittableRandom random;
+	
+	@Setup
+	public void setUp()
+	{
+		playArea = Simulation.createPlayArea();
+		world = Simulation.createWorld(playArea, SEED);
+		script = new ScriptedInput(playArea, WeaponType.values(), 500);
+		input = new PlayerInput();
+		random = new SplittableRandom(SEED);
+		fill();
+	}
+	
+	@Benchmark
+	public int tick()
+	{
+		script.nextInput(input);
+		world.tick(TICK_MILLIS, input);
+		fill();
+		return (world.getScore());
+	}
+	
+	// add enemies at random spots on the right of the play area until there are the wanted number
+	private void fill()
+	{
+		Enemy e;
+		EnemyType type;
+		
+		while (world.getEnemies().size() < enemies)
+		{
+			type = (random.nextInt(10) < 7) ? EnemyType.TYPE1 : EnemyType.TYPE2;
+			e = new Enemy(type, playArea, playArea.x + playArea.width/4 + random.nextInt(playArea.width*3/4),
+						  playArea.y + random.nextInt(playArea.height));
+			e.rotateToPoint(0, e.yPos);
+			e.savePrevState();
+			e.updateTransform();
+			world.addEnemy(e);
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package cs4300;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cs4300.Enemy.EnemyType;
+
+// updating an enemy's position and outline for one tick
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class UpdateBenchmark
+{
+	private static final long TICK_MILLIS = 10;
+	
+	private Enemy enemy;
+	
+	@Setup
+	public void setUp()
+	{
+		enemy = new Enemy(EnemyType.TYPE1, Simulation.createPlayArea(), 960, 600);
+		enemy.rotateToPoint(0, 600);
+	}
+	
+	@Benchmark
+	public double enemy()
+	{
+		// keep the enemy on screen so every update does the same work
+		enemy.relocate(960, 600);
+		enemy.update(TICK_MILLIS);
+		enemy.updateTransform();
+		return (enemy.getMinX());
+	}
+}